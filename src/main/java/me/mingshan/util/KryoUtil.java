@@ -1,56 +1,164 @@
 package me.mingshan.util;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Registration;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.ByteBufferInput;
+import com.esotericsoftware.kryo.io.ByteBufferOutput;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * The util of Kryo.
+ * <p>
+ * Kryo 实例的管理方式通过系统属性 {@value #MODE_PROPERTY} 选择：
+ * <ul>
+ *   <li>{@value #MODE_THREAD_LOCAL}（默认）：每个线程一个 Kryo 实例，线程结束前不会释放，适合线程数固定的线程池</li>
+ *   <li>{@value #MODE_POOL}：从有界的软引用池中借用、用完归还，实例数量与并发数相关而与线程数无关，
+ *   适合大量线程或虚拟线程的场景。池中空闲实例的最大数量通过 {@value #POOL_SIZE_PROPERTY} 设置，
+ *   默认为 CPU 核数的两倍，内存不足时空闲实例可以被 GC 回收</li>
+ * </ul>
  *
  * @author mingshan
  */
 public class KryoUtil {
+  /** Kryo 实例管理方式的系统属性 */
+  public static final String MODE_PROPERTY = "hutils.kryo.mode";
+  /** 池中空闲 Kryo 实例最大数量的系统属性 */
+  public static final String POOL_SIZE_PROPERTY = "hutils.kryo.pool-size";
+  /** 每个线程一个 Kryo 实例 */
+  public static final String MODE_THREAD_LOCAL = "thread-local";
+  /** 从池中借用 Kryo 实例 */
+  public static final String MODE_POOL = "pool";
+
   private static final String DEFAULT_ENCODING = "UTF-8";
 
-  //每个线程的 Kryo 实例
-  private static final ThreadLocal<Kryo> kryoLocal = new ThreadLocal<Kryo>() {
-    @Override
-    protected Kryo initialValue() {
-      Kryo kryo = new Kryo();
+  //输出缓冲区的初始大小
+  private static final int INITIAL_BUFFER_SIZE = 4096;
+
+  //复用的输出缓冲区的最大大小，超过后丢弃，避免长期持有大数组
+  private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+  private static final byte[] EMPTY_BYTES = new byte[0];
+
+  private static final ByteBuffer EMPTY_BYTE_BUFFER = ByteBuffer.allocate(0);
+
+  //列表的编码方式：元素类型相同，只写一次类型
+  private static final byte LIST_SAME_CLASS = 0;
+  //列表的编码方式：元素类型不同，每个元素带上类型
+  private static final byte LIST_MIXED_CLASS = 1;
+
+  //每个线程的 Kryo 实例及复用的 Output/Input
+  private static final ThreadLocal<KryoContext> contextLocal =
+      ThreadLocal.withInitial(() -> new KryoContext(createKryo()));
+
+  //pool 模式下的 Kryo 实例池，thread-local 模式下为 null
+  private static final Pool<KryoContext> contextPool = createPool();
+
+  private static Kryo createKryo() {
+    Kryo kryo = new Kryo();
+
+    /**
+     * 不要轻易改变这里的配置！更改之后，序列化的格式就会发生变化，
+     * 上线的同时就必须清除 Redis 里的所有缓存，
+     * 否则那些缓存再回来反序列化的时候，就会报错
+     */
+    //支持对象循环引用（否则会栈溢出）
+    kryo.setReferences(true); //默认值就是 true，添加此行的目的是为了提醒维护者，不要改变这个配置
 
-      /**
-       * 不要轻易改变这里的配置！更改之后，序列化的格式就会发生变化，
-       * 上线的同时就必须清除 Redis 里的所有缓存，
-       * 否则那些缓存再回来反序列化的时候，就会报错
-       */
-      //支持对象循环引用（否则会栈溢出）
-      kryo.setReferences(true); //默认值就是 true，添加此行的目的是为了提醒维护者，不要改变这个配置
+    //不强制要求注册类（注册行为无法保证多个 JVM 内同一个类的注册编号相同；而且业务系统中大量的 Class 也难以一一注册）
+    kryo.setRegistrationRequired(false); //默认值就是 false，添加此行的目的是为了提醒维护者，不要改变这个配置
 
-      //不强制要求注册类（注册行为无法保证多个 JVM 内同一个类的注册编号相同；而且业务系统中大量的 Class 也难以一一注册）
-      kryo.setRegistrationRequired(false); //默认值就是 false，添加此行的目的是为了提醒维护者，不要改变这个配置
+    //Fix the NPE bug when deserializing Collections.
+    ((DefaultInstantiatorStrategy) kryo.getInstantiatorStrategy())
+        .setFallbackInstantiatorStrategy(new StdInstantiatorStrategy());
 
-      //Fix the NPE bug when deserializing Collections.
-      ((DefaultInstantiatorStrategy) kryo.getInstantiatorStrategy())
-          .setFallbackInstantiatorStrategy(new StdInstantiatorStrategy());
+    return kryo;
+  }
 
-      return kryo;
+  private static Pool<KryoContext> createPool() {
+    String mode = System.getProperty(MODE_PROPERTY, MODE_THREAD_LOCAL);
+    if (MODE_THREAD_LOCAL.equals(mode)) {
+      return null;
+    }
+    if (!MODE_POOL.equals(mode)) {
+      throw new IllegalArgumentException("Unknown Kryo mode: " + mode);
     }
-  };
+
+    int poolSize = Integer.getInteger(POOL_SIZE_PROPERTY, Runtime.getRuntime().availableProcessors() * 2);
+    return new Pool<KryoContext>(true, true, poolSize) {
+      @Override
+      protected KryoContext create() {
+        return new KryoContext(createKryo());
+      }
+    };
+  }
 
   /**
-   * 获得当前线程的 Kryo 实例
+   * 获得当前线程的 Kryo 实例。
+   * <p>
+   * 无论哪种管理方式，返回的都是当前线程独占的实例，pool 模式下推荐使用 {@link #withKryo(Function)}
    *
    * @return 当前线程的 Kryo 实例
    */
   public static Kryo getInstance() {
-    return kryoLocal.get();
+    return contextLocal.get().kryo;
+  }
+
+  /**
+   * 使用按配置管理的 Kryo 实例执行操作，pool 模式下从池中借用，执行完成后归还
+   *
+   * @param action 使用 Kryo 的操作，不能在操作结束后继续持有 Kryo 实例
+   * @param <R>    操作结果的类型
+   * @return 操作结果
+   */
+  public static <R> R withKryo(Function<Kryo, R> action) {
+    KryoContext context = obtain();
+    try {
+      return action.apply(context.kryo);
+    } finally {
+      free(context);
+    }
+  }
+
+  private static KryoContext obtain() {
+    if (contextPool != null) {
+      return contextPool.obtain();
+    }
+    KryoContext context = contextLocal.get();
+    if (context.inUse) {
+      //序列化过程中嵌套调用 KryoUtil，复用的缓冲区正在使用，临时创建新的缓冲区
+      return new KryoContext(context.kryo);
+    }
+    context.inUse = true;
+    return context;
+  }
+
+  private static void free(KryoContext context) {
+    context.clear();
+    if (contextPool != null) {
+      try {
+        contextPool.free(context);
+      } catch (IllegalStateException e) {
+        //池已满时丢弃该实例（Kryo 5.0.0-RC1 的 Pool 在队列满时抛出异常而不是丢弃）
+      }
+    } else {
+      context.inUse = false;
+    }
   }
 
   //-----------------------------------------------
@@ -67,14 +175,13 @@ public class KryoUtil {
    * @return 序列化后的字节数组
    */
   public static <T> byte[] writeToByteArray(T obj) {
-    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-    Output output = new Output(byteArrayOutputStream);
-
-    Kryo kryo = getInstance();
-    kryo.writeClassAndObject(output, obj);
-    output.flush();
-
-    return byteArrayOutputStream.toByteArray();
+    KryoContext context = obtain();
+    try {
+      context.kryo.writeClassAndObject(context.output, obj);
+      return context.output.toBytes();
+    } finally {
+      free(context);
+    }
   }
 
   /**
@@ -102,11 +209,13 @@ public class KryoUtil {
    */
   @SuppressWarnings("unchecked")
   public static <T> T readFromByteArray(byte[] byteArray) {
-    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArray);
-    Input input = new Input(byteArrayInputStream);
-
-    Kryo kryo = getInstance();
-    return (T) kryo.readClassAndObject(input);
+    KryoContext context = obtain();
+    try {
+      context.input.setBuffer(byteArray);
+      return (T) context.kryo.readClassAndObject(context.input);
+    } finally {
+      free(context);
+    }
   }
 
   /**
@@ -138,14 +247,13 @@ public class KryoUtil {
    * @return 序列化后的字节数组
    */
   public static <T> byte[] writeObjectToByteArray(T obj) {
-    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-    Output output = new Output(byteArrayOutputStream);
-
-    Kryo kryo = getInstance();
-    kryo.writeObject(output, obj);
-    output.flush();
-
-    return byteArrayOutputStream.toByteArray();
+    KryoContext context = obtain();
+    try {
+      context.kryo.writeObject(context.output, obj);
+      return context.output.toBytes();
+    } finally {
+      free(context);
+    }
   }
 
   /**
@@ -173,11 +281,13 @@ public class KryoUtil {
    * @return 原对象
    */
   public static <T> T readObjectFromByteArray(byte[] byteArray, Class<T> clazz) {
-    ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(byteArray);
-    Input input = new Input(byteArrayInputStream);
-
-    Kryo kryo = getInstance();
-    return kryo.readObject(input, clazz);
+    KryoContext context = obtain();
+    try {
+      context.input.setBuffer(byteArray);
+      return context.kryo.readObject(context.input, clazz);
+    } finally {
+      free(context);
+    }
   }
 
   /**
@@ -196,4 +306,326 @@ public class KryoUtil {
       throw new IllegalStateException(e);
     }
   }
+
+  //-----------------------------------------------
+  //          序列化/反序列化列表
+  //          格式：元素数量，元素类型相同时只写一次类型，然后依次写元素
+  //-----------------------------------------------
+
+  /**
+   * 将列表序列化为字节数组。
+   * <p>
+   * 先写元素数量，如果所有非 null 元素的类型相同，只写一次类型，然后依次写元素（不含类型）；
+   * 否则每个元素都带上自己的类型。每个元素单独序列化，元素之间不共享引用，
+   * 所以可以逐个反序列化很大的列表
+   *
+   * @param list 列表
+   * @param <T>  元素的类型
+   * @return 序列化后的字节数组
+   */
+  public static <T> byte[] writeListToByteArray(List<T> list) {
+    KryoContext context = obtain();
+    try {
+      writeList(context.kryo, context.output, list);
+      return context.output.toBytes();
+    } finally {
+      free(context);
+    }
+  }
+
+  /**
+   * 将 writeListToByteArray 方法序列化后的字节数组反序列化为列表
+   *
+   * @param byteArray writeListToByteArray 方法序列化后的字节数组
+   * @param clazz     元素的 Class
+   * @param <T>       元素的类型
+   * @return 列表
+   */
+  public static <T> List<T> readListFromByteArray(byte[] byteArray, Class<T> clazz) {
+    KryoContext context = obtain();
+    try {
+      context.input.setBuffer(byteArray);
+      return readList(context.kryo, context.input, clazz);
+    } finally {
+      free(context);
+    }
+  }
+
+  /**
+   * 打开 writeListToByteArray 方法序列化后的字节数组，通过返回的 ListReader 按需逐个反序列化元素，
+   * 内存占用只与已读取的元素有关
+   * <p>
+   * ListReader 不是线程安全的，每个元素使用单独的 Kryo 会话解码，序列化时每个元素也是单独的会话，
+   * 所以读取期间不占用 Kryo 实例，可以与其他序列化操作交替进行
+   *
+   * @param byteArray writeListToByteArray 方法序列化后的字节数组，读取期间不能修改
+   * @return 列表的读取器
+   */
+  public static ListReader openListFromByteArray(byte[] byteArray) {
+    Input input = new Input(byteArray);
+    int size = input.readVarInt(true);
+    if (size == 0) {
+      return new ListReader(input, 0, null);
+    }
+
+    byte mode = input.readByte();
+    if (mode == LIST_SAME_CLASS) {
+      Class<?> type = withKryo(kryo -> kryo.readClass(input).getType());
+      return new ListReader(input, size, type);
+    } else if (mode == LIST_MIXED_CLASS) {
+      return new ListReader(input, size, null);
+    }
+    throw new KryoException("Unknown list encoding: " + mode);
+  }
+
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  private static void writeList(Kryo kryo, Output output, List<?> list) {
+    output.writeVarInt(list.size(), true);
+    if (list.isEmpty()) {
+      return;
+    }
+
+    Class<?> elementClass = elementClass(list);
+    if (elementClass == null) {
+      output.writeByte(LIST_MIXED_CLASS);
+      for (Object element : list) {
+        kryo.writeClassAndObject(output, element);
+      }
+      return;
+    }
+
+    output.writeByte(LIST_SAME_CLASS);
+    Serializer serializer = kryo.writeClass(output, elementClass).getSerializer();
+    for (Object element : list) {
+      kryo.writeObjectOrNull(output, element, serializer);
+    }
+  }
+
+  private static <T> List<T> readList(Kryo kryo, Input input, Class<T> clazz) {
+    int size = input.readVarInt(true);
+    //数量来自输入，不能直接按数量分配
+    List<T> list = new ArrayList<>(Math.min(size, INITIAL_BUFFER_SIZE));
+    if (size == 0) {
+      return list;
+    }
+
+    byte mode = input.readByte();
+    if (mode == LIST_SAME_CLASS) {
+      Registration registration = kryo.readClass(input);
+      Class<?> type = registration.getType();
+      Serializer<?> serializer = registration.getSerializer();
+      for (int i = 0; i < size; i++) {
+        list.add(clazz.cast(kryo.readObjectOrNull(input, type, serializer)));
+      }
+    } else if (mode == LIST_MIXED_CLASS) {
+      for (int i = 0; i < size; i++) {
+        list.add(clazz.cast(kryo.readClassAndObject(input)));
+      }
+    } else {
+      throw new KryoException("Unknown list encoding: " + mode);
+    }
+    return list;
+  }
+
+  /**
+   * 返回所有非 null 元素的共同类型，类型不同或者全为 null 时返回 null
+   */
+  private static Class<?> elementClass(List<?> list) {
+    Class<?> elementClass = null;
+    for (Object element : list) {
+      if (element == null) {
+        continue;
+      }
+      if (elementClass == null) {
+        elementClass = element.getClass();
+      } else if (elementClass != element.getClass()) {
+        return null;
+      }
+    }
+    return elementClass;
+  }
+
+  //-----------------------------------------------
+  //          直接序列化到 ByteBuffer/流，或从 ByteBuffer/流反序列化
+  //          只序列化对象，与 writeObjectToByteArray 的格式相同
+  //-----------------------------------------------
+
+  /**
+   * 将对象序列化到 ByteBuffer 中，从 position 开始写入，写入后 position 移动到对象之后。
+   * 可以直接写入堆外内存，不经过中间的字节数组
+   *
+   * @param obj    任意对象
+   * @param buffer 写入的 ByteBuffer
+   * @param <T>    对象的类型
+   * @throws BufferOverflowException ByteBuffer 剩余空间不足时抛出，此时 position 不变
+   */
+  public static <T> void writeObjectToByteBuffer(T obj, ByteBuffer buffer) {
+    int start = buffer.position();
+    KryoContext context = obtain();
+    try {
+      //使用 slice 使剩余空间即为输出的最大容量，空间不足时不会扩容
+      context.byteBufferOutput.setBuffer(buffer.slice());
+      context.kryo.writeObject(context.byteBufferOutput, obj);
+      buffer.position(start + context.byteBufferOutput.position());
+    } catch (KryoException e) {
+      buffer.position(start);
+      if (e.getMessage() != null && e.getMessage().startsWith("Buffer overflow")) {
+        BufferOverflowException overflow = new BufferOverflowException();
+        overflow.initCause(e);
+        throw overflow;
+      }
+      throw e;
+    } finally {
+      free(context);
+    }
+  }
+
+  /**
+   * 从 ByteBuffer 的 position 处反序列化对象，读取后 position 移动到对象之后
+   *
+   * @param buffer 读取的 ByteBuffer
+   * @param clazz  原对象的 Class
+   * @param <T>    原对象的类型
+   * @return 原对象
+   */
+  public static <T> T readObjectFromByteBuffer(ByteBuffer buffer, Class<T> clazz) {
+    KryoContext context = obtain();
+    try {
+      context.byteBufferInput.setBuffer(buffer);
+      T obj = context.kryo.readObject(context.byteBufferInput, clazz);
+      buffer.position(context.byteBufferInput.position());
+      return obj;
+    } finally {
+      free(context);
+    }
+  }
+
+  /**
+   * 将对象序列化到输出流，写入后刷新缓冲区，不关闭输出流
+   *
+   * @param obj          任意对象
+   * @param outputStream 输出流
+   * @param <T>          对象的类型
+   */
+  public static <T> void writeObjectToStream(T obj, OutputStream outputStream) {
+    KryoContext context = obtain();
+    try {
+      context.output.setOutputStream(outputStream);
+      context.kryo.writeObject(context.output, obj);
+      context.output.flush();
+    } finally {
+      context.output.setOutputStream(null);
+      free(context);
+    }
+  }
+
+  /**
+   * 从输入流反序列化对象，不关闭输入流。
+   * 读取时会预读输入流，所以输入流中对象之后的数据可能已被读取
+   *
+   * @param inputStream 输入流
+   * @param clazz       原对象的 Class
+   * @param <T>         原对象的类型
+   * @return 原对象
+   */
+  public static <T> T readObjectFromStream(InputStream inputStream, Class<T> clazz) {
+    KryoContext context = obtain();
+    Input input = context.streamInput();
+    try {
+      input.setInputStream(inputStream);
+      return context.kryo.readObject(input, clazz);
+    } finally {
+      input.setInputStream(null);
+      free(context);
+    }
+  }
+
+  /**
+   * 按顺序逐个读取 writeListToByteArray 序列化后的列表元素，type 为 null 时每个元素都带有类型信息
+   */
+  public static final class ListReader {
+    private final Input input;
+    private final int size;
+    private final Class<?> type;
+
+    private ListReader(Input input, int size, Class<?> type) {
+      this.input = input;
+      this.size = size;
+      this.type = type;
+    }
+
+    /**
+     * 返回列表的元素数量
+     *
+     * @return 元素数量
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * 读取下一个元素，调用方负责不超过 size 次
+     *
+     * @return 元素，可能为 null
+     */
+    public Object readNext() {
+      return withKryo(this::readElement);
+    }
+
+    /**
+     * 跳过接下来的 n 个元素。元素没有长度前缀，只能解码后丢弃
+     *
+     * @param n 跳过的元素数量
+     */
+    public void skip(int n) {
+      withKryo(kryo -> {
+        for (int i = 0; i < n; i++) {
+          readElement(kryo);
+        }
+        return null;
+      });
+    }
+
+    private Object readElement(Kryo kryo) {
+      return type == null ? kryo.readClassAndObject(input) : kryo.readObjectOrNull(input, type);
+    }
+  }
+
+  /**
+   * Kryo 实例及与之一起复用的 Output/Input。
+   * 写入时直接序列化到可增长的缓冲区，最后只拷贝一次；读取时直接读字节数组，不再包装成流。
+   */
+  private static final class KryoContext {
+    private final Kryo kryo;
+    private final Output output = new Output(INITIAL_BUFFER_SIZE, -1);
+    private final Input input = new Input(EMPTY_BYTES);
+    private final ByteBufferOutput byteBufferOutput = new ByteBufferOutput();
+    private final ByteBufferInput byteBufferInput = new ByteBufferInput();
+    //从流中读取时使用，首次使用时创建
+    private Input streamInput;
+    //thread-local 模式下是否正在使用
+    private boolean inUse;
+
+    KryoContext(Kryo kryo) {
+      this.kryo = kryo;
+    }
+
+    Input streamInput() {
+      if (streamInput == null) {
+        streamInput = new Input(INITIAL_BUFFER_SIZE);
+      }
+      return streamInput;
+    }
+
+    void clear() {
+      output.reset();
+      if (output.getBuffer().length > MAX_POOLED_BUFFER_SIZE) {
+        output.setBuffer(new byte[INITIAL_BUFFER_SIZE], -1);
+      }
+      //不持有调用方的字节数组和 ByteBuffer
+      input.setBuffer(EMPTY_BYTES);
+      byteBufferOutput.setBuffer(EMPTY_BYTE_BUFFER);
+      byteBufferInput.setBuffer(EMPTY_BYTE_BUFFER);
+    }
+  }
 }
@@ -245,6 +245,47 @@ public class TimeUtil {
         return localDateTime2Date(endTime);
     }
 
+    /**
+     * Parses the text to {@link Duration}, supports ISO-8601 format (e.g. {@code PT5M}) and
+     * the simple format which consists of amount and unit, the unit can be {@code ms}, {@code s},
+     * {@code m}, {@code h} or {@code d}, e.g. {@code 500ms}, {@code 30s}, {@code 5m}.
+     *
+     * @param text the text to parse
+     * @return the parsed duration
+     */
+    public static Duration parseDuration(String text) {
+        String value = text.trim();
+        if (value.startsWith("P") || value.startsWith("p")) {
+            return Duration.parse(value);
+        }
+
+        int i = 0;
+        while (i < value.length() && Character.isDigit(value.charAt(i))) {
+            i++;
+        }
+        if (i == 0) {
+            throw new IllegalArgumentException("Invalid duration: " + text);
+        }
+
+        long amount = Long.parseLong(value.substring(0, i));
+        String unit = value.substring(i).trim().toLowerCase();
+        switch (unit) {
+            case "ms":
+                return Duration.ofMillis(amount);
+            case "":
+            case "s":
+                return Duration.ofSeconds(amount);
+            case "m":
+                return Duration.ofMinutes(amount);
+            case "h":
+                return Duration.ofHours(amount);
+            case "d":
+                return Duration.ofDays(amount);
+            default:
+                throw new IllegalArgumentException("Invalid duration unit: " + text);
+        }
+    }
+
     /**
      * The format of time
      */
@@ -0,0 +1,119 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache;
+
+import me.mingshan.util.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Interface that defines common cache operations which do not block the caller, the results
+ * are {@link CompletableFuture}s, so the lookups can be composed by the reactive code.
+ *
+ * @author mingshan
+ */
+public interface AsyncCache {
+
+    /**
+     * Gets the name of cache.
+     *
+     * @return the name of cache.
+     */
+    String getName();
+
+    /**
+     * Gets the value by specified key from cache.
+     *
+     * @param key the specified key
+     * @return the future of the value, completed with {@code null} if the value is not present
+     */
+    CompletableFuture<Object> get(Object key);
+
+    /**
+     * Gets the value by specified key from cache, if the value is not present, loads it by the
+     * asynchronous loader and puts it into cache when the loading is completed. Only one loading
+     * runs per key at a time, the other callers of the same key get the future of that loading.
+     * <p>
+     * If the loading completes with {@code null}, nothing is put into cache.
+     *
+     * @param key the specified key
+     * @param loader the function to compute the value asynchronously
+     * @return the future of the value
+     */
+    CompletableFuture<Object> get(Object key, Function<Object, CompletableFuture<Object>> loader);
+
+    /**
+     * Gets the values which are associated with the specified keys from cache,
+     * the keys which are not present in cache are not contained in the result.
+     *
+     * @param keys the specified keys
+     * @return the future of the present values
+     */
+    CompletableFuture<Map<Object, Object>> getAll(Iterable<?> keys);
+
+    /**
+     * Gets the values which are associated with the specified keys from cache, the keys which
+     * are not present are loaded by the asynchronous loader in one call and put into cache.
+     *
+     * @param keys the specified keys
+     * @param loader the function to compute the values of the missing keys asynchronously
+     * @return the future of the values
+     */
+    CompletableFuture<Map<Object, Object>> getAll(Iterable<?> keys,
+                                                  Function<Set<Object>, CompletableFuture<Map<Object, Object>>> loader);
+
+    /**
+     * Puts key and value into cache.
+     *
+     * @param key the specified key
+     * @param value the value which is associated with the specified key
+     * @return the future which is completed when the value is put
+     */
+    CompletableFuture<Void> put(Object key, Object value);
+
+    /**
+     * Puts key and value into cache with the specified time to live.
+     *
+     * @param key the specified key
+     * @param value the value which is associated with the specified key
+     * @param ttl the time to live of entry
+     * @return the future which is completed when the value is put
+     * @throws UnsupportedOperationException if the cache does not support the time to live of entry
+     */
+    default CompletableFuture<Void> put(Object key, Object value, Duration ttl) {
+        throw new UnsupportedOperationException("The cache [" + getName() + "] does not support the time to live of entry");
+    }
+
+    /**
+     * Evicts the value by specified key.
+     *
+     * @param key the specified key
+     * @return the future which is completed when the value is evicted
+     */
+    CompletableFuture<Void> evict(Object key);
+
+    /**
+     * Returns the statistics of cache, the counts are always zero if the cache
+     * does not record statistics.
+     *
+     * @return the statistics of cache
+     */
+    default CacheStats stats() {
+        return CacheStats.empty();
+    }
+}
@@ -13,6 +13,14 @@
  */
 package me.mingshan.util.cache;
 
+import me.mingshan.util.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
 /**
  * Interface that defines common cache operations.
  *
@@ -35,6 +43,66 @@ public interface Cache {
      */
     Object get(Object key);
 
+    /**
+     * Looks up the value by specified key from cache, tells the key which is cached as
+     * known absent apart from the key which is not cached.
+     *
+     * @param key the specified key
+     * @return the wrapper of value, {@link ValueWrapper#ABSENT} if the key is known absent,
+     *         or {@code null} if the key is not cached
+     */
+    default ValueWrapper lookup(Object key) {
+        return ValueWrapper.of(get(key));
+    }
+
+    /**
+     * Gets the value by specified key from cache, if the value is not present,
+     * loads it by the loader and puts it into cache. The loader is invoked at most
+     * once per key at a time, the other callers of the same key wait for the result
+     * of that invocation.
+     * <p>
+     * If the loader returns {@code null}, nothing is put into cache, unless the cache
+     * supports negative caching, then the key is cached as known absent and the loader
+     * is not invoked again until the absent mark expires.
+     *
+     * @param key the specified key
+     * @param loader the function to compute the value
+     * @return the value which is associated with the specified key
+     */
+    Object get(Object key, Function<Object, Object> loader);
+
+    /**
+     * Gets the value by specified key from cache asynchronously, if the value is not
+     * present, loads it by the asynchronous loader and puts it into cache when the
+     * loading is completed. Only one loading runs per key at a time, the other callers
+     * of the same key get the future of that loading.
+     *
+     * @param key the specified key
+     * @param loader the function to compute the value asynchronously
+     * @return the future of the value which is associated with the specified key
+     */
+    CompletableFuture<Object> getAsync(Object key, Function<Object, CompletableFuture<Object>> loader);
+
+    /**
+     * Gets the values which are associated with the specified keys from cache,
+     * the keys which are not present in cache are not contained in the result.
+     *
+     * @param keys the specified keys
+     * @return the mappings of the keys which are present in cache
+     */
+    Map<Object, Object> getAll(Iterable<?> keys);
+
+    /**
+     * Gets the values which are associated with the specified keys from cache,
+     * the missing keys are loaded by the bulk loader in one call, and the loaded
+     * values are put into cache.
+     *
+     * @param keys the specified keys
+     * @param loader the bulk loader which loads the values of the missing keys
+     * @return the mappings of the keys which are present in cache or loaded by loader
+     */
+    Map<Object, Object> getAll(Iterable<?> keys, Function<Set<Object>, Map<Object, Object>> loader);
+
     /**
      * Puts key and value into cache.
      *
@@ -43,6 +111,26 @@ public interface Cache {
      */
     void put(Object key, Object value);
 
+    /**
+     * Puts key and value into cache with the specified time to live, which overrides
+     * the default time to live of cache for this entry.
+     *
+     * @param key the specified key
+     * @param value the value which is associated with the specified key
+     * @param ttl the time to live of entry
+     * @throws UnsupportedOperationException if the cache does not support the time to live of entry
+     */
+    default void put(Object key, Object value, Duration ttl) {
+        throw new UnsupportedOperationException("The cache [" + getName() + "] does not support the time to live of entry");
+    }
+
+    /**
+     * Puts all of the mappings from the specified map into cache.
+     *
+     * @param map the mappings to be stored in cache
+     */
+    void putAll(Map<?, ?> map);
+
     /**
      * Atomically associate the specified value with the specified key in this cache
      * if it is not set already.
@@ -71,8 +159,25 @@ public interface Cache {
      */
     void evict(Object key);
 
+    /**
+     * Evicts the mappings for the specified keys from this cache.
+     *
+     * @param keys the keys whose mappings are to be removed from the cache
+     */
+    void evictAll(Iterable<?> keys);
+
     /**
      * Removes all mappings from the cache.
      */
     void clear();
+
+    /**
+     * Returns the snapshot of statistics of this cache, the cache which does not record
+     * statistics returns {@link CacheStats#empty()}.
+     *
+     * @return the statistics
+     */
+    default CacheStats stats() {
+        return CacheStats.empty();
+    }
 }
@@ -0,0 +1,170 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The typed cache key, consists of the namespace and the name or the numeric id, replaces
+ * the key concatenated with {@link CachePrefix#getValue()}.
+ * <p>
+ * The hash code is computed once when the key is created. The keys with name are interned
+ * per namespace, so looking up the cache with the same name again returns the same key
+ * without allocation, the interned keys are limited to {@value #MAX_INTERNED_KEYS} per
+ * namespace, the keys beyond the limit are created on every call. The keys with numeric id
+ * are not interned, but are a single small object instead of the concatenated string,
+ * and the ids in {@code [0, }{@value #SMALL_ID_LIMIT}{@code )} are cached.
+ * <p>
+ * The {@link #toString()} is same as the concatenated key, for example {@code String#name},
+ * so the remote caches keep the same key format.
+ *
+ * @author mingshan
+ */
+public final class CacheKey implements Serializable {
+    private static final long serialVersionUID = -1791386592718291625L;
+
+    // The maximum count of interned keys per namespace.
+    private static final int MAX_INTERNED_KEYS = 10_000;
+
+    // The upper bound (exclusive) of cached numeric ids.
+    private static final int SMALL_ID_LIMIT = 1024;
+
+    private static final CachePrefix[] NAMESPACES = CachePrefix.values();
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final ConcurrentMap<String, CacheKey>[] INTERNED = new ConcurrentMap[NAMESPACES.length];
+
+    private static final CacheKey[][] SMALL_IDS = new CacheKey[NAMESPACES.length][SMALL_ID_LIMIT];
+
+    static {
+        for (CachePrefix namespace : NAMESPACES) {
+            INTERNED[namespace.ordinal()] = new ConcurrentHashMap<>();
+            CacheKey[] keys = SMALL_IDS[namespace.ordinal()];
+            for (int i = 0; i < SMALL_ID_LIMIT; i++) {
+                keys[i] = new CacheKey(namespace, null, i);
+            }
+        }
+    }
+
+    private final CachePrefix namespace;
+    private final String name;
+    private final long id;
+    private final int hash;
+
+    private CacheKey(CachePrefix namespace, String name, long id) {
+        this.namespace = namespace;
+        this.name = name;
+        this.id = id;
+        this.hash = 31 * namespace.ordinal() + (name != null ? name.hashCode() : Long.hashCode(id));
+    }
+
+    /**
+     * Returns the key of the name in the namespace.
+     *
+     * @param namespace the namespace
+     * @param name the name
+     * @return the interned key
+     */
+    public static CacheKey of(CachePrefix namespace, String name) {
+        Objects.requireNonNull(namespace);
+        Objects.requireNonNull(name);
+        ConcurrentMap<String, CacheKey> interned = INTERNED[namespace.ordinal()];
+        CacheKey key = interned.get(name);
+        if (key != null) {
+            return key;
+        }
+        key = new CacheKey(namespace, name, 0);
+        if (interned.size() >= MAX_INTERNED_KEYS) {
+            return key;
+        }
+        CacheKey previous = interned.putIfAbsent(name, key);
+        return previous != null ? previous : key;
+    }
+
+    /**
+     * Returns the key of the numeric id in the namespace.
+     *
+     * @param namespace the namespace
+     * @param id the id
+     * @return the key
+     */
+    public static CacheKey of(CachePrefix namespace, long id) {
+        Objects.requireNonNull(namespace);
+        if (id >= 0 && id < SMALL_ID_LIMIT) {
+            return SMALL_IDS[namespace.ordinal()][(int) id];
+        }
+        return new CacheKey(namespace, null, id);
+    }
+
+    /**
+     * Returns the key of the numeric id in the namespace, the key equals to the key
+     * created by {@link #of(CachePrefix, long)} with the same id.
+     *
+     * @param namespace the namespace
+     * @param id the id
+     * @return the key
+     */
+    public static CacheKey of(CachePrefix namespace, int id) {
+        return of(namespace, (long) id);
+    }
+
+    public CachePrefix getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * Returns the name of key.
+     *
+     * @return the name, or {@code null} if the key is created with numeric id
+     */
+    public String getName() {
+        return name;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey other = (CacheKey) o;
+        return hash == other.hash
+            && namespace == other.namespace
+            && id == other.id
+            && Objects.equals(name, other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return namespace.getValue() + (name != null ? name : String.valueOf(id));
+    }
+
+    private Object readResolve() {
+        return name != null ? of(namespace, name) : of(namespace, id);
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * The registry of named caches, every cache is registered by its name.
+ *
+ * @author mingshan
+ */
+public class CacheManager {
+    private static final ConcurrentMap<String, Cache> CACHES = new ConcurrentHashMap<>();
+
+    private CacheManager() {
+        throw new UnsupportedOperationException("It's prohibited to create instances of the class.");
+    }
+
+    /**
+     * Gets the cache by the specified name.
+     *
+     * @param name the name of cache
+     * @return the cache, or {@code null} if there is no cache with the name
+     */
+    public static Cache getCache(String name) {
+        Objects.requireNonNull(name);
+        return CACHES.get(name);
+    }
+
+    /**
+     * Gets the cache by the specified name, if the cache does not exist,
+     * creates it by the factory and registers it.
+     *
+     * @param name the name of cache
+     * @param factory the factory to create cache
+     * @return the cache
+     */
+    public static Cache getCache(String name, Function<String, ? extends Cache> factory) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(factory);
+        return CACHES.computeIfAbsent(name, factory);
+    }
+
+    /**
+     * Registers the cache by its name.
+     *
+     * @param cache the cache
+     * @throws IllegalStateException if a cache with the same name has been registered
+     */
+    public static void register(Cache cache) {
+        Objects.requireNonNull(cache);
+        Cache existing = CACHES.putIfAbsent(cache.getName(), cache);
+        if (existing != null && existing != cache) {
+            throw new IllegalStateException("The cache [" + cache.getName() + "] has been registered");
+        }
+    }
+
+    /**
+     * Removes the cache from registry.
+     *
+     * @param name the name of cache
+     * @return the removed cache, or {@code null} if there is no cache with the name
+     */
+    public static Cache remove(String name) {
+        Objects.requireNonNull(name);
+        return CACHES.remove(name);
+    }
+
+    /**
+     * Returns the names of all registered caches.
+     *
+     * @return the names of caches
+     */
+    public static Set<String> getCacheNames() {
+        return Collections.unmodifiableSet(CACHES.keySet());
+    }
+}
@@ -1,7 +1,7 @@
 package me.mingshan.util.cache;
 
 /**
- * The prefix enum for local cache.
+ * The prefix enum for local cache, also the namespace of {@link CacheKey}.
  *
  * @author mingshan
  */
@@ -0,0 +1,61 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache;
+
+import java.time.Duration;
+
+/**
+ * The policy which decides the time to live of every entry, for example, the volatile
+ * values expire soon and the static values live longer.
+ * <p>
+ * The methods return {@code null} to fall back to the default time to live of cache.
+ *
+ * @author mingshan
+ */
+@FunctionalInterface
+public interface ExpiryPolicy {
+
+    /**
+     * Returns the time to live of the entry after it is created.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the time to live, or {@code null} to use the default
+     */
+    Duration expireAfterCreate(Object key, Object value);
+
+    /**
+     * Returns the time to live of the entry after its value is replaced,
+     * the default is same as {@link #expireAfterCreate(Object, Object)}.
+     *
+     * @param key the key
+     * @param value the new value
+     * @return the time to live, or {@code null} to use the default
+     */
+    default Duration expireAfterUpdate(Object key, Object value) {
+        return expireAfterCreate(key, value);
+    }
+
+    /**
+     * Returns the time to live of the entry after it is read, the default keeps
+     * the remaining time to live.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the time to live, or {@code null} to keep the remaining time to live
+     */
+    default Duration expireAfterRead(Object key, Object value) {
+        return null;
+    }
+}
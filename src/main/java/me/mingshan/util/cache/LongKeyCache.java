@@ -0,0 +1,101 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache;
+
+import me.mingshan.util.cache.stats.CacheStats;
+
+import java.util.function.LongFunction;
+
+/**
+ * Interface that defines common cache operations for the primitive {@code long} keys, the
+ * numeric ids are not boxed, so the lookups do not allocate on the hot path.
+ *
+ * @author mingshan
+ */
+public interface LongKeyCache {
+
+    /**
+     * Gets the name of cache.
+     *
+     * @return the name of cache.
+     */
+    String getName();
+
+    /**
+     * Gets the value by specified key from cache.
+     *
+     * @param key the specified key
+     * @return the value which is associated with the specified key
+     */
+    Object get(long key);
+
+    /**
+     * Gets the value by specified key from cache, if the value is not present,
+     * loads it by the loader and puts it into cache. The loader is invoked at most
+     * once per key at a time, the other callers of the same key wait for the result
+     * of that invocation.
+     * <p>
+     * If the loader returns {@code null}, nothing is put into cache.
+     *
+     * @param key the specified key
+     * @param loader the function to compute the value
+     * @return the value which is associated with the specified key
+     */
+    Object get(long key, LongFunction<Object> loader);
+
+    /**
+     * Puts the value into cache with specified key.
+     *
+     * @param key the specified key
+     * @param value the value
+     */
+    void put(long key, Object value);
+
+    /**
+     * Puts the value into cache if the key is not associated with a value.
+     *
+     * @param key the specified key
+     * @param value the value
+     * @return the value which is associated with the specified key before, or {@code null}
+     */
+    Object putIfPresent(long key, Object value);
+
+    /**
+     * Evicts the value by specified key.
+     *
+     * @param key the specified key
+     */
+    void evict(long key);
+
+    /**
+     * Clears all values in cache.
+     */
+    void clear();
+
+    /**
+     * Returns the count of entries in cache.
+     *
+     * @return the count of entries
+     */
+    long size();
+
+    /**
+     * Returns the statistics of cache.
+     *
+     * @return the statistics of cache
+     */
+    default CacheStats stats() {
+        return CacheStats.empty();
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache;
+
+import java.io.Serializable;
+
+/**
+ * The sentinel stored in cache which marks the key as known absent, so the repeated misses
+ * do not reach the backing source. The caches never return it to the callers, it is
+ * translated to {@code null}.
+ *
+ * @author mingshan
+ */
+public final class NullValue implements Serializable {
+    private static final long serialVersionUID = 3275291547925623961L;
+
+    /**
+     * The only instance of sentinel.
+     */
+    public static final NullValue INSTANCE = new NullValue();
+
+    private NullValue() {
+    }
+
+    /**
+     * Translates the sentinel to {@code null}.
+     *
+     * @param value the stored value
+     * @return {@code null} if the value is the sentinel, otherwise the value itself
+     */
+    public static Object unwrap(Object value) {
+        return value instanceof NullValue ? null : value;
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+
+    @Override
+    public String toString() {
+        return "NullValue";
+    }
+}
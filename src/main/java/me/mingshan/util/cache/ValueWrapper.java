@@ -0,0 +1,71 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache;
+
+/**
+ * The holder of cached value returned by {@link Cache#lookup(Object)}, the held value is
+ * {@code null} if the key is cached as known absent.
+ *
+ * @author mingshan
+ */
+public final class ValueWrapper {
+    /**
+     * The wrapper of the key which is cached as known absent.
+     */
+    public static final ValueWrapper ABSENT = new ValueWrapper(null);
+
+    private final Object value;
+
+    private ValueWrapper(Object value) {
+        this.value = value;
+    }
+
+    /**
+     * Wraps the stored value, the {@link NullValue} is wrapped as {@link #ABSENT}.
+     *
+     * @param value the stored value
+     * @return the wrapper, or {@code null} if the value is {@code null}
+     */
+    public static ValueWrapper of(Object value) {
+        if (value == null) {
+            return null;
+        }
+        return value instanceof NullValue ? ABSENT : new ValueWrapper(value);
+    }
+
+    /**
+     * Returns the cached value.
+     *
+     * @return the value, or {@code null} if the key is known absent
+     */
+    public Object get() {
+        return value;
+    }
+
+    /**
+     * Returns whether the key is cached as known absent.
+     *
+     * @return {@code true} if the key is known absent
+     */
+    public boolean isAbsent() {
+        return value == null;
+    }
+
+    @Override
+    public String toString() {
+        return "ValueWrapper{" +
+            "value=" + value +
+            '}';
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.caffeine;
+
+import com.github.benmanes.caffeine.cache.Policy;
+import me.mingshan.util.cache.AsyncCache;
+import me.mingshan.util.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * The {@link AsyncCache} implementation with the asynchronous cache of Caffeine, the cache
+ * holds the futures of values, so the concurrent loadings of the same key share one future
+ * and no thread is blocked while the value is loading.
+ * <p>
+ * The cache is configured by {@link CaffeineConfig}, except that the loader is given per call.
+ *
+ * @author mingshan
+ */
+public class CaffeineAsyncCache implements AsyncCache {
+    private static final CompletableFuture<Object> NULL_FUTURE = CompletableFuture.completedFuture(null);
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.AsyncCache<Object, Object> cache;
+    private final CaffeineStatsCounter statsCounter = new CaffeineStatsCounter();
+    private final boolean recordStats;
+
+    /**
+     * Creates the cache with the specified configuration.
+     *
+     * @param config the configuration of cache
+     */
+    public CaffeineAsyncCache(CaffeineConfig config) {
+        Objects.requireNonNull(config);
+        this.name = config.getName();
+        this.recordStats = config.isRecordStats();
+        this.cache = config.buildAsyncCache(this.statsCounter);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public CompletableFuture<Object> get(Object key) {
+        Objects.requireNonNull(key);
+        CompletableFuture<Object> future = this.cache.getIfPresent(key);
+        return future == null ? NULL_FUTURE : future;
+    }
+
+    @Override
+    public CompletableFuture<Object> get(Object key, Function<Object, CompletableFuture<Object>> loader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        return this.cache.get(key, (k, executor) -> loader.apply(k));
+    }
+
+    @Override
+    public CompletableFuture<Map<Object, Object>> getAll(Iterable<?> keys) {
+        Objects.requireNonNull(keys);
+        Map<Object, CompletableFuture<Object>> futures = new LinkedHashMap<>();
+        for (Object key : keys) {
+            CompletableFuture<Object> future = this.cache.getIfPresent(Objects.requireNonNull(key));
+            if (future != null) {
+                futures.put(key, future);
+            }
+        }
+        if (futures.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+            .handle((ignored, error) -> {
+                // The failed loadings are treated as absent like the single get.
+                Map<Object, Object> result = new HashMap<>();
+                futures.forEach((key, future) -> {
+                    Object value = future.isCompletedExceptionally() ? null : future.join();
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                });
+                return result;
+            });
+    }
+
+    @Override
+    public CompletableFuture<Map<Object, Object>> getAll(Iterable<?> keys,
+                                                         Function<Set<Object>, CompletableFuture<Map<Object, Object>>> loader) {
+        Objects.requireNonNull(keys);
+        Objects.requireNonNull(loader);
+        // Caffeine only passes the missing keys to the mapping function.
+        return this.cache.getAll(keys, (missingKeys, executor) -> {
+            Set<Object> keysToLoad = new HashSet<>();
+            missingKeys.forEach(keysToLoad::add);
+            return loader.apply(keysToLoad);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> put(Object key, Object value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        this.cache.put(key, CompletableFuture.completedFuture(value));
+        return DONE;
+    }
+
+    @Override
+    public CompletableFuture<Void> put(Object key, Object value, Duration ttl) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(ttl);
+        Policy.VarExpiration<Object, Object> expiration = this.cache.synchronous().policy().expireVariably()
+            .orElseThrow(() -> new UnsupportedOperationException("The cache [" + this.name
+                + "] is configured with both expireAfterWrite and expireAfterAccess"));
+        expiration.put(key, value, ttl);
+        return DONE;
+    }
+
+    @Override
+    public CompletableFuture<Void> evict(Object key) {
+        Objects.requireNonNull(key);
+        this.cache.synchronous().invalidate(key);
+        return DONE;
+    }
+
+    @Override
+    public CacheStats stats() {
+        long size = this.cache.synchronous().estimatedSize();
+        if (!this.recordStats) {
+            return new CacheStats(0, 0, 0, 0, 0, Collections.emptyMap(), size);
+        }
+        return this.statsCounter.snapshot(size);
+    }
+}
@@ -14,50 +14,192 @@
 package me.mingshan.util.cache.caffeine;
 
 
+import com.github.benmanes.caffeine.cache.Policy;
 import me.mingshan.util.cache.Cache;
+import me.mingshan.util.cache.CacheManager;
+import me.mingshan.util.cache.NullValue;
+import me.mingshan.util.cache.ValueWrapper;
+import me.mingshan.util.cache.snapshot.SnapshotEntry;
+import me.mingshan.util.cache.snapshot.Snapshotable;
+import me.mingshan.util.cache.stats.CacheStats;
+import me.mingshan.util.cache.support.SingleFlightLoader;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * The cache implementation with Caffeine.
+ * <p>
+ * The cache supports warm-start snapshot, see {@link me.mingshan.util.cache.snapshot.CacheSnapshotter}.
+ * The remaining time to live of restored entry is kept unless the cache is configured with both
+ * {@code expireAfterWrite} and {@code expireAfterAccess}, the expire time of single entry can not
+ * be adjusted in that case, so the entries with expire time are not restored.
  *
  * @author mingshan
  */
-public class CaffeineCache implements Cache {
-    private com.github.benmanes.caffeine.cache.Cache<Object, Object> cache;
+public class CaffeineCache implements Cache, Snapshotable {
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> cache;
+    private final RefreshMetrics refreshMetrics = new RefreshMetrics();
+    private final CaffeineStatsCounter statsCounter = new CaffeineStatsCounter();
+    private final boolean recordStats;
+    private final boolean negativeCaching;
+    private final SingleFlightLoader singleFlightLoader = new SingleFlightLoader();
 
     /**
-     * No Public.
+     * Creates the cache with the default configuration.
      */
     public CaffeineCache() {
-        cache = CaffeineConfig.getCache();
+        this(CaffeineConfig.defaultConfig(CaffeineConfig.DEFAULT_NAME));
     }
 
     /**
-     * Inner class for Lazy load.
+     * Creates the cache with the specified configuration.
+     *
+     * @param config the configuration of cache
      */
-    private static final class CaffeineCacheHolder {
-        private static final CaffeineCache INSTANCE = new CaffeineCache();
+    public CaffeineCache(CaffeineConfig config) {
+        Objects.requireNonNull(config);
+        this.name = config.getName();
+        this.recordStats = config.isRecordStats();
+        this.negativeCaching = config.getNegativeTtl() != null;
+        this.cache = config.buildCache(this.refreshMetrics, this.statsCounter);
     }
 
     /**
-     * Returns the instance of {@link CaffeineCache}.
+     * Returns the default instance of {@link CaffeineCache}.
      *
      * @return the instance of {@link CaffeineCache}.
      */
     public static CaffeineCache getInstance() {
-        return CaffeineCacheHolder.INSTANCE;
+        return getInstance(CaffeineConfig.DEFAULT_NAME);
+    }
+
+    /**
+     * Returns the instance of {@link CaffeineCache} by the specified name, if the cache
+     * does not exist, creates it with the configuration defined in property file and
+     * registers it into {@link CacheManager}.
+     *
+     * @param name the name of cache
+     * @return the instance of {@link CaffeineCache}.
+     */
+    public static CaffeineCache getInstance(String name) {
+        return getInstance(name, null);
+    }
+
+    /**
+     * Returns the instance of {@link CaffeineCache} by the specified name, if the cache
+     * does not exist, creates it with the configuration defined in property file and the
+     * loader, and registers it into {@link CacheManager}. The loader is required by the
+     * {@code refresh-after-write} property, which is ignored without a loader.
+     *
+     * @param name the name of cache
+     * @param loader the loader, may be {@code null}
+     * @return the instance of {@link CaffeineCache}.
+     */
+    public static CaffeineCache getInstance(String name, Function<Object, Object> loader) {
+        Cache cache = CacheManager.getCache(name,
+            cacheName -> new CaffeineCache(CaffeineConfig.fromPropertyFile(cacheName, loader)));
+        if (!(cache instanceof CaffeineCache)) {
+            throw new IllegalStateException("The cache [" + name + "] is not a CaffeineCache");
+        }
+        return (CaffeineCache) cache;
     }
 
     @Override
     public String getName() {
-        return CaffeineCache.class.getSimpleName();
+        return this.name;
     }
 
     @Override
     public Object get(Object key) {
         Objects.requireNonNull(key);
-        return this.cache.getIfPresent(key);
+        return NullValue.unwrap(this.cache.getIfPresent(key));
+    }
+
+    @Override
+    public ValueWrapper lookup(Object key) {
+        Objects.requireNonNull(key);
+        return ValueWrapper.of(this.cache.getIfPresent(key));
+    }
+
+    @Override
+    public Object get(Object key, Function<Object, Object> loader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        if (!this.negativeCaching) {
+            return this.cache.get(key, loader);
+        }
+
+        // Looks up without recording stats first, so the hit does not create the wrapped loader.
+        Object value = this.cache.asMap().get(key);
+        if (value != null) {
+            if (this.recordStats) {
+                this.statsCounter.recordHits(1);
+            }
+            return NullValue.unwrap(value);
+        }
+        return NullValue.unwrap(this.cache.get(key, k -> {
+            Object loaded = loader.apply(k);
+            return loaded == null ? NullValue.INSTANCE : loaded;
+        }));
+    }
+
+    @Override
+    public CompletableFuture<Object> getAsync(Object key, Function<Object, CompletableFuture<Object>> loader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        if (!this.negativeCaching) {
+            return this.singleFlightLoader.load(key, this.cache::getIfPresent, loader, this.cache::put);
+        }
+        return this.singleFlightLoader.load(key, this.cache::getIfPresent,
+            k -> loader.apply(k).thenApply(loaded -> loaded == null ? NullValue.INSTANCE : loaded),
+            this.cache::put).thenApply(NullValue::unwrap);
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Iterable<?> keys) {
+        Objects.requireNonNull(keys);
+        return withoutAbsent(this.cache.getAllPresent(keys));
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Iterable<?> keys, Function<Set<Object>, Map<Object, Object>> loader) {
+        Objects.requireNonNull(keys);
+        Objects.requireNonNull(loader);
+        // Caffeine only passes the missing keys to the mapping function.
+        return withoutAbsent(this.cache.getAll(keys, missingKeys -> {
+            Set<Object> keysToLoad = new HashSet<>();
+            missingKeys.forEach(keysToLoad::add);
+            Map<Object, Object> loaded = loader.apply(keysToLoad);
+            if (!this.negativeCaching) {
+                return loaded;
+            }
+            Map<Object, Object> values = new HashMap<>(loaded);
+            for (Object missingKey : keysToLoad) {
+                values.putIfAbsent(missingKey, NullValue.INSTANCE);
+            }
+            return values;
+        }));
+    }
+
+    private Map<Object, Object> withoutAbsent(Map<Object, Object> values) {
+        if (!this.negativeCaching || !values.containsValue(NullValue.INSTANCE)) {
+            return values;
+        }
+        Map<Object, Object> result = new HashMap<>(values);
+        result.values().removeIf(value -> value instanceof NullValue);
+        return result;
     }
 
     @Override
@@ -66,10 +208,38 @@ public class CaffeineCache implements Cache {
         this.cache.put(key, value);
     }
 
+    @Override
+    public void put(Object key, Object value, Duration ttl) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(ttl);
+        Policy.VarExpiration<Object, Object> expiration = this.cache.policy().expireVariably()
+            .orElseThrow(() -> new UnsupportedOperationException("The cache [" + this.name
+                + "] is configured with both expireAfterWrite and expireAfterAccess"));
+        expiration.put(key, value, ttl);
+    }
+
+    @Override
+    public void putAll(Map<?, ?> map) {
+        Objects.requireNonNull(map);
+        this.cache.putAll(map);
+    }
+
     @Override
     public Object putIfPresent(Object key, Object value) {
         Objects.requireNonNull(key);
-        return this.cache.asMap().putIfAbsent(key, value);
+        if (!this.negativeCaching) {
+            return this.cache.asMap().putIfAbsent(key, value);
+        }
+        while (true) {
+            Object previous = this.cache.asMap().putIfAbsent(key, value);
+            if (!(previous instanceof NullValue)) {
+                return previous;
+            }
+            // The known absent key is treated as absent.
+            if (this.cache.asMap().replace(key, previous, value)) {
+                return null;
+            }
+        }
     }
 
     @Override
@@ -78,8 +248,118 @@ public class CaffeineCache implements Cache {
         this.cache.invalidate(key);
     }
 
+    @Override
+    public void evictAll(Iterable<?> keys) {
+        Objects.requireNonNull(keys);
+        this.cache.invalidateAll(keys);
+    }
+
     @Override
     public void clear() {
         this.cache.invalidateAll();
     }
+
+    @Override
+    public CacheStats stats() {
+        long size = this.cache.estimatedSize();
+        if (!this.recordStats) {
+            return new CacheStats(0, 0, 0, 0, 0, Collections.emptyMap(), size);
+        }
+        return this.statsCounter.snapshot(size);
+    }
+
+    @Override
+    public List<SnapshotEntry> hottest(int limit) {
+        Policy<Object, Object> policy = this.cache.policy();
+        Map<Object, Object> entries;
+        if (policy.eviction().isPresent()) {
+            entries = policy.eviction().get().hottest(limit);
+        } else if (policy.expireVariably().isPresent()) {
+            entries = policy.expireVariably().get().youngest(limit);
+        } else {
+            entries = this.cache.asMap();
+        }
+
+        long now = System.currentTimeMillis();
+        List<SnapshotEntry> result = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (entry.getValue() instanceof NullValue) {
+                continue;
+            }
+            Optional<Duration> remaining = remainingTimeToLive(policy, entry.getKey());
+            long expireAtMillis = remaining.map(duration -> now + duration.toMillis())
+                .orElse(SnapshotEntry.NEVER_EXPIRE);
+            result.add(new SnapshotEntry(entry.getKey(), entry.getValue(), expireAtMillis));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean restore(SnapshotEntry entry) {
+        Objects.requireNonNull(entry);
+        long remainingMillis = entry.remainingMillis(System.currentTimeMillis());
+        if (remainingMillis <= 0) {
+            return false;
+        }
+        Policy<Object, Object> policy = this.cache.policy();
+        if (policy.expireVariably().isPresent()) {
+            // The entry which never expired before is restored with the expire time of this cache.
+            if (remainingMillis == Long.MAX_VALUE) {
+                return this.cache.asMap().putIfAbsent(entry.getKey(), entry.getValue()) == null;
+            }
+            return policy.expireVariably().get()
+                .putIfAbsent(entry.getKey(), entry.getValue(), Duration.ofMillis(remainingMillis));
+        }
+        if (policy.expireAfterWrite().isPresent() || policy.expireAfterAccess().isPresent()) {
+            return false;
+        }
+        return this.cache.asMap().putIfAbsent(entry.getKey(), entry.getValue()) == null;
+    }
+
+    private static Optional<Duration> remainingTimeToLive(Policy<Object, Object> policy, Object key) {
+        if (policy.expireVariably().isPresent()) {
+            return policy.expireVariably().get().getExpiresAfter(key);
+        }
+        Optional<Duration> afterWrite = policy.expireAfterWrite().flatMap(expiration -> expiration.ageOf(key)
+            .map(age -> expiration.getExpiresAfter().minus(age)));
+        Optional<Duration> afterAccess = policy.expireAfterAccess().flatMap(expiration -> expiration.ageOf(key)
+            .map(age -> expiration.getExpiresAfter().minus(age)));
+        if (afterWrite.isPresent() && afterAccess.isPresent()) {
+            return Optional.of(afterWrite.get().compareTo(afterAccess.get()) < 0 ? afterWrite.get() : afterAccess.get());
+        }
+        return afterWrite.isPresent() ? afterWrite : afterAccess;
+    }
+
+    /**
+     * Returns the total weight of entries if the cache is bounded by weight,
+     * otherwise returns the estimated count of entries.
+     *
+     * @return the total weight of entries
+     */
+    public long getWeightedSize() {
+        return this.cache.policy().eviction()
+            .filter(Policy.Eviction::isWeighted)
+            .map(eviction -> eviction.weightedSize().orElse(0L))
+            .orElseGet(this.cache::estimatedSize);
+    }
+
+    /**
+     * Returns the metrics of refresh-ahead, the counts are always zero if
+     * {@code refreshAfterWrite} is not configured.
+     *
+     * @return the metrics of refresh-ahead
+     */
+    public RefreshMetrics getRefreshMetrics() {
+        return this.refreshMetrics;
+    }
+
+    /**
+     * Performs the pending maintenance operations of cache, such as eviction.
+     */
+    public void cleanUp() {
+        this.cache.cleanUp();
+    }
 }
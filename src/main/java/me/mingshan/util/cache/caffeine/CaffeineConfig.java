@@ -13,47 +13,530 @@
  */
 package me.mingshan.util.cache.caffeine;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import me.mingshan.util.ClassUtil;
+import me.mingshan.util.cache.ExpiryPolicy;
+import me.mingshan.util.cache.NullValue;
+import me.mingshan.util.PropertyUtil;
+import me.mingshan.util.StringUtil;
+import me.mingshan.util.TimeUtil;
+import me.mingshan.util.propertys.FileProperties;
 
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
- * The configuration of Caffeine cache.
+ * The configuration of Caffeine cache, every {@link CaffeineCache} is created with
+ * its own configuration, so the caches do not share the capacity with each other.
+ * <p>
+ * The configuration can be defined in properties, the keys are prefixed with
+ * {@code hutils.cache.<name>.}, for example:
+ * <pre>
+ * hutils.cache.properties.maximum-size=1000
+ * hutils.cache.properties.expire-after-write=10m
+ * </pre>
+ * <p>
+ * The cache can be bounded by weight instead of entry count, the {@code weigher} property
+ * can be {@code serialized} ({@link SerializedSizeWeigher}), {@code shallow} or {@code deep}
+ * ({@link ReflectiveSizeWeigher}), the default is {@code serialized}.
+ * <p>
+ * The time to live of every entry can be decided by the {@link ExpiryPolicy} or given by
+ * {@link CaffeineCache#put(Object, Object, Duration)}, the configured {@code expireAfterWrite}
+ * or {@code expireAfterAccess} is the default. The entries expire by the variable expiration
+ * of Caffeine, except that both {@code expireAfterWrite} and {@code expireAfterAccess} are
+ * configured, the time to live of single entry is not supported in that case.
+ * <p>
+ * If {@code negativeTtl} is set, the key whose loader returns {@code null} is cached as known
+ * absent ({@link NullValue}) for that shorter time, so the repeated misses do not reach the
+ * backing source.
+ * <p>
+ * If {@code refreshAfterWrite} is set, the cache works in refresh-ahead mode: the reader
+ * gets the stale value immediately and the value is reloaded by the loader on a bounded
+ * refresh executor, the refresh is dropped and retried on the next read if the executor
+ * is saturated.
  *
  * @author mingshan
  */
+@Slf4j
 public class CaffeineConfig {
-    // The capacity of Caffeine cache.
-    private static final int MAXINUM_SIZE = 10_000;
+    /**
+     * The name of default cache.
+     */
+    public static final String DEFAULT_NAME = "default";
 
-    // The expire time of value.
-    private static final int EXPIRE_TIME = 5;
+    /**
+     * The prefix of property keys.
+     */
+    public static final String PROPERTY_PREFIX = "hutils.cache.";
 
-    // The unit of expire time.
-    private static final TimeUnit EXPIRE_TIME_UNIT = TimeUnit.MINUTES;
+    // The default capacity of Caffeine cache.
+    private static final long DEFAULT_MAXIMUM_SIZE = 10_000;
 
-    // The refresh time of value.
-    private static final int REFRESH_TIME = 1;
+    // The default expire time of value.
+    private static final Duration DEFAULT_EXPIRE_AFTER_WRITE = Duration.ofMinutes(5);
 
-    // The unit of refresh time.
-    private static final TimeUnit REFRESH_TIME_UNIT = TimeUnit.MINUTES;
+    // The default thread count of refresh executor.
+    private static final int DEFAULT_REFRESH_THREADS = Math.min(4, Runtime.getRuntime().availableProcessors());
 
-    private volatile static Cache<Object, Object> cache;
+    // The default queue size of refresh executor.
+    private static final int DEFAULT_REFRESH_QUEUE_SIZE = 1_000;
 
-    public static Cache<Object, Object> getCache() {
-        if (cache == null) {
-            synchronized (CaffeineConfig.class) {
-                if (cache == null) {
-                    cache = Caffeine.newBuilder()
-                        .maximumSize(MAXINUM_SIZE)
-                        .expireAfterWrite(EXPIRE_TIME, EXPIRE_TIME_UNIT)
-                        //.refreshAfterWrite( REFRESH_TIME, REFRESH_TIME_UNIT)
-                        .build();
-                }
+    private static final long UNSET = -1;
+
+    private final String name;
+    private int initialCapacity = (int) UNSET;
+    private long maximumSize = UNSET;
+    private long maximumWeight = UNSET;
+    private Weigher<Object, Object> weigher;
+    private Duration expireAfterWrite;
+    private Duration expireAfterAccess;
+    private ExpiryPolicy expiryPolicy;
+    private Duration negativeTtl;
+    private Duration refreshAfterWrite;
+    private Function<Object, Object> loader;
+    private boolean recordStats = true;
+    private Executor refreshExecutor;
+    private int refreshThreads = DEFAULT_REFRESH_THREADS;
+    private int refreshQueueSize = DEFAULT_REFRESH_QUEUE_SIZE;
+
+    private CaffeineConfig(String name) {
+        this.name = Objects.requireNonNull(name);
+    }
+
+    /**
+     * Creates an empty configuration, the cache created by it is unbounded and never expires.
+     *
+     * @param name the name of cache
+     * @return the configuration
+     */
+    public static CaffeineConfig of(String name) {
+        return new CaffeineConfig(name);
+    }
+
+    /**
+     * Creates the default configuration, the capacity is 10000 and the value
+     * expires 5 minutes after written.
+     *
+     * @param name the name of cache
+     * @return the configuration
+     */
+    public static CaffeineConfig defaultConfig(String name) {
+        return of(name)
+            .maximumSize(DEFAULT_MAXIMUM_SIZE)
+            .expireAfterWrite(DEFAULT_EXPIRE_AFTER_WRITE);
+    }
+
+    /**
+     * Creates the configuration from properties, the properties which are set override
+     * the {@link #defaultConfig(String) default configuration}. The {@code maximum-weight}
+     * replaces the default maximum size, so it can not be set with {@code maximum-size}.
+     *
+     * @param name the name of cache
+     * @param properties the properties
+     * @return the configuration
+     * @throws IllegalArgumentException if both {@code maximum-size} and {@code maximum-weight} are set
+     */
+    public static CaffeineConfig fromProperties(String name, Properties properties) {
+        String prefix = PROPERTY_PREFIX + name + ".";
+        CaffeineConfig config = defaultConfig(name);
+        String value = properties.getProperty(prefix + "initial-capacity");
+        if (!StringUtil.isEmpty(value)) {
+            config.initialCapacity(Integer.parseInt(value.trim()));
+        }
+        value = properties.getProperty(prefix + "maximum-size");
+        String weightValue = properties.getProperty(prefix + "maximum-weight");
+        if (!StringUtil.isEmpty(value) && !StringUtil.isEmpty(weightValue)) {
+            throw new IllegalArgumentException("The " + prefix + "maximum-size and " + prefix
+                + "maximum-weight can not be set at the same time");
+        }
+        if (!StringUtil.isEmpty(value)) {
+            config.maximumSize(Long.parseLong(value.trim()));
+        }
+        if (!StringUtil.isEmpty(weightValue)) {
+            config.maximumSize(UNSET);
+            config.maximumWeight(Long.parseLong(weightValue.trim()));
+            config.weigher(parseWeigher(properties.getProperty(prefix + "weigher")));
+        }
+        value = properties.getProperty(prefix + "expire-after-write");
+        if (!StringUtil.isEmpty(value)) {
+            config.expireAfterWrite(TimeUtil.parseDuration(value));
+        }
+        value = properties.getProperty(prefix + "expire-after-access");
+        if (!StringUtil.isEmpty(value)) {
+            config.expireAfterAccess(TimeUtil.parseDuration(value));
+        }
+        value = properties.getProperty(prefix + "negative-ttl");
+        if (!StringUtil.isEmpty(value)) {
+            config.negativeTtl(TimeUtil.parseDuration(value));
+        }
+        value = properties.getProperty(prefix + "refresh-after-write");
+        if (!StringUtil.isEmpty(value)) {
+            config.refreshAfterWrite(TimeUtil.parseDuration(value));
+        }
+        value = properties.getProperty(prefix + "record-stats");
+        if (!StringUtil.isEmpty(value)) {
+            config.recordStats(Boolean.parseBoolean(value.trim()));
+        }
+        value = properties.getProperty(prefix + "refresh-threads");
+        if (!StringUtil.isEmpty(value)) {
+            config.refreshThreads(Integer.parseInt(value.trim()));
+        }
+        value = properties.getProperty(prefix + "refresh-queue-size");
+        if (!StringUtil.isEmpty(value)) {
+            config.refreshQueueSize(Integer.parseInt(value.trim()));
+        }
+        return config;
+    }
+
+    private static Weigher<Object, Object> parseWeigher(String value) {
+        if (StringUtil.isEmpty(value)) {
+            return new SerializedSizeWeigher();
+        }
+        switch (value.trim()) {
+            case "serialized":
+                return new SerializedSizeWeigher();
+            case "shallow":
+                return ReflectiveSizeWeigher.shallow();
+            case "deep":
+                return ReflectiveSizeWeigher.deep();
+            default:
+                throw new IllegalArgumentException("Unknown weigher: " + value);
+        }
+    }
+
+    /**
+     * Creates the configuration from the property file {@link FileProperties#PROPERTY_FILE_NAME},
+     * if the file does not exist, returns the default configuration.
+     *
+     * @param name the name of cache
+     * @return the configuration
+     */
+    public static CaffeineConfig fromPropertyFile(String name) {
+        return fromPropertyFile(name, null);
+    }
+
+    /**
+     * Creates the configuration from the property file {@link FileProperties#PROPERTY_FILE_NAME}
+     * with the loader, if the file does not exist, returns the default configuration.
+     *
+     * @param name the name of cache
+     * @param loader the loader, may be {@code null}
+     * @return the configuration
+     * @see #fromProperties(String, Properties, Function)
+     */
+    public static CaffeineConfig fromPropertyFile(String name, Function<Object, Object> loader) {
+        Properties properties = new Properties();
+        if (ClassUtil.getClassLoader().getResource(FileProperties.PROPERTY_FILE_NAME) != null) {
+            properties = PropertyUtil.loadProperties(FileProperties.PROPERTY_FILE_NAME);
+        }
+        return fromProperties(name, properties, loader);
+    }
+
+    /**
+     * Creates the configuration from properties with the loader. The {@code refresh-after-write}
+     * property requires a loader, it is ignored with a warning if the loader is {@code null},
+     * so the cache can still be created.
+     *
+     * @param name the name of cache
+     * @param properties the properties
+     * @param loader the loader, may be {@code null}
+     * @return the configuration
+     */
+    public static CaffeineConfig fromProperties(String name, Properties properties, Function<Object, Object> loader) {
+        CaffeineConfig config = fromProperties(name, properties);
+        if (loader != null) {
+            config.loader(loader);
+        } else if (config.refreshAfterWrite != null) {
+            log.warn("The refresh-after-write of cache [{}] is ignored because there is no loader", name);
+            config.refreshAfterWrite(null);
+        }
+        return config;
+    }
+
+    public CaffeineConfig initialCapacity(int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+        return this;
+    }
+
+    public CaffeineConfig maximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum weight of cache, it requires a weigher.
+     *
+     * @param maximumWeight the maximum weight
+     * @return this configuration
+     */
+    public CaffeineConfig maximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+        return this;
+    }
+
+    /**
+     * Sets the weigher which weighs the entries, e.g. {@link SerializedSizeWeigher}
+     * or {@link ReflectiveSizeWeigher}.
+     *
+     * @param weigher the weigher
+     * @return this configuration
+     */
+    public CaffeineConfig weigher(Weigher<Object, Object> weigher) {
+        this.weigher = weigher;
+        return this;
+    }
+
+    public CaffeineConfig expireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+        return this;
+    }
+
+    public CaffeineConfig expireAfterAccess(Duration expireAfterAccess) {
+        this.expireAfterAccess = expireAfterAccess;
+        return this;
+    }
+
+    /**
+     * Sets the policy which decides the time to live of every entry, the configured
+     * {@code expireAfterWrite} or {@code expireAfterAccess} is used if the policy returns
+     * {@code null}. If {@code expireAfterAccess} is configured, reading the entry resets
+     * its time to live to {@code expireAfterAccess}.
+     *
+     * @param expiryPolicy the policy of entries
+     * @return this configuration
+     */
+    public CaffeineConfig expiryPolicy(ExpiryPolicy expiryPolicy) {
+        this.expiryPolicy = expiryPolicy;
+        return this;
+    }
+
+    /**
+     * Sets the time to live of the key which is cached as known absent, the negative
+     * caching is disabled if it is not set.
+     *
+     * @param negativeTtl the time to live of absent mark
+     * @return this configuration
+     */
+    public CaffeineConfig negativeTtl(Duration negativeTtl) {
+        this.negativeTtl = negativeTtl;
+        return this;
+    }
+
+    public Duration getNegativeTtl() {
+        return negativeTtl;
+    }
+
+    /**
+     * Sets the refresh time of value, it requires a loader to reload the value.
+     *
+     * @param refreshAfterWrite the refresh time
+     * @return this configuration
+     */
+    public CaffeineConfig refreshAfterWrite(Duration refreshAfterWrite) {
+        this.refreshAfterWrite = refreshAfterWrite;
+        return this;
+    }
+
+    /**
+     * Sets the loader which is used to load or reload the value of the specified key.
+     *
+     * @param loader the loader
+     * @return this configuration
+     */
+    public CaffeineConfig loader(Function<Object, Object> loader) {
+        this.loader = loader;
+        return this;
+    }
+
+    /**
+     * Sets the executor which reloads the values in refresh-ahead mode, if it is not set,
+     * a bounded executor is created by {@code refreshThreads} and {@code refreshQueueSize}.
+     * The refreshes which are rejected by the executor keep the current values.
+     *
+     * @param refreshExecutor the refresh executor
+     * @return this configuration
+     */
+    public CaffeineConfig refreshExecutor(Executor refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
+        return this;
+    }
+
+    public CaffeineConfig refreshThreads(int refreshThreads) {
+        this.refreshThreads = refreshThreads;
+        return this;
+    }
+
+    public CaffeineConfig refreshQueueSize(int refreshQueueSize) {
+        this.refreshQueueSize = refreshQueueSize;
+        return this;
+    }
+
+    /**
+     * Sets whether to record the statistics of cache, the default is {@code true}.
+     *
+     * @param recordStats whether to record statistics
+     * @return this configuration
+     */
+    public CaffeineConfig recordStats(boolean recordStats) {
+        this.recordStats = recordStats;
+        return this;
+    }
+
+    public boolean isRecordStats() {
+        return recordStats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public Duration getRefreshAfterWrite() {
+        return refreshAfterWrite;
+    }
+
+    public Function<Object, Object> getLoader() {
+        return loader;
+    }
+
+    /**
+     * Builds the Caffeine cache with this configuration.
+     *
+     * @param refreshMetrics the metrics of refresh-ahead
+     * @param statsCounter the counter of statistics, used if {@code recordStats} is true
+     * @return the Caffeine cache
+     */
+    Cache<Object, Object> buildCache(RefreshMetrics refreshMetrics, StatsCounter statsCounter) {
+        Caffeine<Object, Object> builder = newBuilder(statsCounter);
+        if (refreshAfterWrite != null) {
+            if (loader == null) {
+                throw new IllegalStateException("The refresh of cache [" + name + "] requires a loader");
+            }
+            builder.refreshAfterWrite(refreshAfterWrite);
+        }
+
+        if (loader == null) {
+            return builder.build();
+        }
+        if (refreshAfterWrite == null) {
+            return builder.build(negativeCaching(loader)::apply);
+        }
+        Executor executor = refreshExecutor != null ? refreshExecutor : newRefreshExecutor();
+        return builder.build(new RefreshAheadLoader(negativeCaching(loader), executor, refreshMetrics));
+    }
+
+    /**
+     * Builds the asynchronous Caffeine cache with this configuration, the loader is given
+     * per call, so the {@code loader}, {@code refreshAfterWrite} and {@code negativeTtl}
+     * are not supported.
+     *
+     * @param statsCounter the counter of statistics, used if {@code recordStats} is true
+     * @return the asynchronous Caffeine cache
+     */
+    AsyncCache<Object, Object> buildAsyncCache(StatsCounter statsCounter) {
+        if (loader != null || refreshAfterWrite != null || negativeTtl != null) {
+            throw new IllegalStateException("The loader, refresh and negative ttl are not supported by async cache ["
+                + name + "]");
+        }
+        return newBuilder(statsCounter).buildAsync();
+    }
+
+    private Caffeine<Object, Object> newBuilder(StatsCounter statsCounter) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        if (recordStats) {
+            builder.recordStats(() -> statsCounter);
+        }
+        if (initialCapacity != UNSET) {
+            builder.initialCapacity(initialCapacity);
+        }
+        if (maximumSize != UNSET) {
+            builder.maximumSize(maximumSize);
+        }
+        if (maximumWeight != UNSET) {
+            if (weigher == null) {
+                throw new IllegalStateException("The maximum weight of cache [" + name + "] requires a weigher");
+            }
+            builder.maximumWeight(maximumWeight).weigher(weigher);
+        }
+        if (expireAfterWrite != null && expireAfterAccess != null) {
+            // The variable expiry can not express both policies, the expire time of
+            // single entry is not adjustable in this case.
+            if (expiryPolicy != null || negativeTtl != null) {
+                throw new IllegalStateException("The expiry policy and negative ttl of cache [" + name
+                    + "] can not be used with both expireAfterWrite and expireAfterAccess");
             }
+            builder.expireAfterWrite(expireAfterWrite).expireAfterAccess(expireAfterAccess);
+        } else if (expireAfterAccess != null) {
+            builder.expireAfter(new ConfiguredExpiry(expiryPolicy, expireAfterAccess, true, negativeTtl));
+        } else {
+            builder.expireAfter(new ConfiguredExpiry(expiryPolicy, expireAfterWrite, false, negativeTtl));
         }
+        return builder;
+    }
+
+    /**
+     * Wraps the loader to translate {@code null} to {@link NullValue} if the negative caching is enabled.
+     *
+     * @param loader the loader
+     * @return the wrapped loader
+     */
+    private Function<Object, Object> negativeCaching(Function<Object, Object> loader) {
+        if (negativeTtl == null) {
+            return loader;
+        }
+        return key -> {
+            Object value = loader.apply(key);
+            return value == null ? NullValue.INSTANCE : value;
+        };
+    }
+
+    private Executor newRefreshExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(refreshThreads, refreshThreads,
+            60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(refreshQueueSize),
+            new ThreadFactoryBuilder().setNameFormat("cache-refresh-" + name + "-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 
-        return cache;
+    @Override
+    public String toString() {
+        return "CaffeineConfig{" +
+            "name='" + name + '\'' +
+            ", initialCapacity=" + initialCapacity +
+            ", maximumSize=" + maximumSize +
+            ", maximumWeight=" + maximumWeight +
+            ", expireAfterWrite=" + expireAfterWrite +
+            ", expireAfterAccess=" + expireAfterAccess +
+            ", expiryPolicy=" + expiryPolicy +
+            ", negativeTtl=" + negativeTtl +
+            ", refreshAfterWrite=" + refreshAfterWrite +
+            ", refreshThreads=" + refreshThreads +
+            ", refreshQueueSize=" + refreshQueueSize +
+            ", recordStats=" + recordStats +
+            '}';
     }
 }
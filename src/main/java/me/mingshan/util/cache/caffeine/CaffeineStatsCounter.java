@@ -0,0 +1,119 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.caffeine;
+
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.benmanes.caffeine.cache.stats.StatsCounter;
+import me.mingshan.util.cache.stats.CacheStats.EvictionCause;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@link StatsCounter} which records the count of evictions by cause.
+ *
+ * @author mingshan
+ */
+class CaffeineStatsCounter implements StatsCounter {
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+    private final LongAdder evictionWeight = new LongAdder();
+    private final Map<EvictionCause, LongAdder> evictionCounts = new EnumMap<>(EvictionCause.class);
+
+    CaffeineStatsCounter() {
+        for (EvictionCause cause : EvictionCause.values()) {
+            evictionCounts.put(cause, new LongAdder());
+        }
+    }
+
+    @Override
+    public void recordHits(int count) {
+        hitCount.add(count);
+    }
+
+    @Override
+    public void recordMisses(int count) {
+        missCount.add(count);
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadTime) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    @Override
+    public void recordLoadFailure(long loadTime) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTime);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void recordEviction() {
+        recordEviction(1, RemovalCause.SIZE);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void recordEviction(int weight) {
+        recordEviction(weight, RemovalCause.SIZE);
+    }
+
+    @Override
+    public void recordEviction(int weight, RemovalCause cause) {
+        EvictionCause evictionCause;
+        switch (cause) {
+            case EXPIRED:
+                evictionCause = EvictionCause.EXPIRED;
+                break;
+            case COLLECTED:
+                evictionCause = EvictionCause.COLLECTED;
+                break;
+            default:
+                evictionCause = EvictionCause.SIZE;
+                break;
+        }
+        evictionCounts.get(evictionCause).increment();
+        evictionWeight.add(weight);
+    }
+
+    @Override
+    public CacheStats snapshot() {
+        long evictionCount = 0;
+        for (LongAdder count : evictionCounts.values()) {
+            evictionCount += count.sum();
+        }
+        return CacheStats.of(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(), loadFailureCount.sum(),
+            totalLoadTime.sum(), evictionCount, evictionWeight.sum());
+    }
+
+    /**
+     * Returns the snapshot of statistics.
+     *
+     * @param size the count of entries
+     * @return the statistics
+     */
+    me.mingshan.util.cache.stats.CacheStats snapshot(long size) {
+        Map<EvictionCause, Long> counts = new EnumMap<>(EvictionCause.class);
+        evictionCounts.forEach((cause, count) -> counts.put(cause, count.sum()));
+        return new me.mingshan.util.cache.stats.CacheStats(hitCount.sum(), missCount.sum(), loadSuccessCount.sum(),
+            loadFailureCount.sum(), totalLoadTime.sum(), counts, size);
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.caffeine;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import me.mingshan.util.cache.ExpiryPolicy;
+import me.mingshan.util.cache.NullValue;
+
+import java.time.Duration;
+
+/**
+ * The {@link Expiry} which combines the {@link ExpiryPolicy} with the configured
+ * {@code expireAfterWrite} or {@code expireAfterAccess}. Building the cache with the
+ * variable expiry allows the time to live of single entry to be set, Caffeine expires
+ * the entries by its timer wheel in O(1) instead of scanning them.
+ * <p>
+ * The {@link NullValue} expires after the negative time to live, the policy is not applied to it.
+ *
+ * @author mingshan
+ */
+class ConfiguredExpiry implements Expiry<Object, Object> {
+    // The duration of the entry which never expires, Caffeine treats it as infinite.
+    private static final long NEVER_EXPIRE = Long.MAX_VALUE;
+
+    private final ExpiryPolicy policy;
+    private final long defaultNanos;
+    private final boolean resetOnRead;
+    private final long negativeNanos;
+
+    /**
+     * Creates the expiry.
+     *
+     * @param policy the policy of entries, nullable
+     * @param defaultDuration the default time to live, {@code null} means never expire
+     * @param resetOnRead whether the reading resets the time to live to the default
+     * @param negativeDuration the time to live of {@link NullValue}, {@code null} means the default
+     */
+    ConfiguredExpiry(ExpiryPolicy policy, Duration defaultDuration, boolean resetOnRead, Duration negativeDuration) {
+        this.policy = policy;
+        this.defaultNanos = defaultDuration == null ? NEVER_EXPIRE : defaultDuration.toNanos();
+        this.resetOnRead = resetOnRead;
+        this.negativeNanos = negativeDuration == null ? this.defaultNanos : negativeDuration.toNanos();
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        if (value instanceof NullValue) {
+            return negativeNanos;
+        }
+        return policy == null ? defaultNanos : toNanos(policy.expireAfterCreate(key, value), defaultNanos);
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        if (value instanceof NullValue) {
+            return negativeNanos;
+        }
+        return policy == null ? defaultNanos : toNanos(policy.expireAfterUpdate(key, value), defaultNanos);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        if (value instanceof NullValue) {
+            return currentDuration;
+        }
+        if (resetOnRead) {
+            return defaultNanos;
+        }
+        return policy == null ? currentDuration : toNanos(policy.expireAfterRead(key, value), currentDuration);
+    }
+
+    private static long toNanos(Duration duration, long fallback) {
+        return duration == null ? fallback : duration.toNanos();
+    }
+}
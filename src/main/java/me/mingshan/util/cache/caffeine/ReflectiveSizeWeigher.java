@@ -0,0 +1,223 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.caffeine;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The weigher which estimates the heap size of value in bytes by reflection.
+ * <p>
+ * The estimation assumes 64-bit JVM with compressed oops: 12 bytes object header,
+ * 16 bytes array header, 4 bytes reference and 8 bytes alignment. The shallow mode only
+ * counts the value itself, the deep mode walks the whole object graph reachable from the
+ * value, the objects shared in the graph are counted once. The collections and maps are
+ * walked by their elements, so the JDK internals do not need to be accessible.
+ *
+ * @author mingshan
+ */
+public class ReflectiveSizeWeigher implements Weigher<Object, Object> {
+    private static final int OBJECT_HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int ALIGNMENT = 8;
+    // The estimated overhead of an element of collection or a mapping of map.
+    private static final int NODE_OVERHEAD = 32;
+
+    private static final ConcurrentMap<Class<?>, ClassLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+    private final boolean deep;
+
+    private ReflectiveSizeWeigher(boolean deep) {
+        this.deep = deep;
+    }
+
+    /**
+     * Returns the weigher which only counts the value itself.
+     *
+     * @return the shallow weigher
+     */
+    public static ReflectiveSizeWeigher shallow() {
+        return new ReflectiveSizeWeigher(false);
+    }
+
+    /**
+     * Returns the weigher which counts the whole object graph reachable from the value.
+     *
+     * @return the deep weigher
+     */
+    public static ReflectiveSizeWeigher deep() {
+        return new ReflectiveSizeWeigher(true);
+    }
+
+    @Override
+    public int weigh(Object key, Object value) {
+        long size = deep ? deepSizeOf(value) : shallowSizeOf(value);
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Estimates the size of the object itself.
+     *
+     * @param obj the object
+     * @return the estimated size in bytes
+     */
+    public static long shallowSizeOf(Object obj) {
+        if (obj == null) {
+            return 0;
+        }
+        Class<?> clazz = obj.getClass();
+        if (clazz.isArray()) {
+            return align(ARRAY_HEADER + (long) Array.getLength(obj) * componentSize(clazz.getComponentType()));
+        }
+        if (obj instanceof String) {
+            // The object and its backing array.
+            return layoutOf(clazz).shallowSize + align(ARRAY_HEADER + ((String) obj).length() * 2L);
+        }
+        return layoutOf(clazz).shallowSize;
+    }
+
+    /**
+     * Estimates the size of the object graph reachable from the object.
+     *
+     * @param obj the object
+     * @return the estimated size in bytes
+     */
+    public static long deepSizeOf(Object obj) {
+        if (obj == null) {
+            return 0;
+        }
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(obj);
+        long size = 0;
+        while (!pending.isEmpty()) {
+            Object current = pending.pop();
+            if (!visited.add(current)) {
+                continue;
+            }
+            size += shallowSizeOf(current);
+
+            Class<?> clazz = current.getClass();
+            if (current instanceof String) {
+                continue;
+            }
+            if (clazz.isArray()) {
+                if (!clazz.getComponentType().isPrimitive()) {
+                    int length = Array.getLength(current);
+                    for (int i = 0; i < length; i++) {
+                        pushIfNotNull(pending, Array.get(current, i));
+                    }
+                }
+            } else if (current instanceof Collection) {
+                Collection<?> collection = (Collection<?>) current;
+                size += (long) collection.size() * NODE_OVERHEAD;
+                for (Object element : collection) {
+                    pushIfNotNull(pending, element);
+                }
+            } else if (current instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) current;
+                size += (long) map.size() * NODE_OVERHEAD;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    pushIfNotNull(pending, entry.getKey());
+                    pushIfNotNull(pending, entry.getValue());
+                }
+            } else {
+                for (Field field : layoutOf(clazz).referenceFields) {
+                    try {
+                        pushIfNotNull(pending, field.get(current));
+                    } catch (IllegalAccessException e) {
+                        // Counts the reference only.
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    private static void pushIfNotNull(Deque<Object> pending, Object obj) {
+        if (obj != null) {
+            pending.push(obj);
+        }
+    }
+
+    private static ClassLayout layoutOf(Class<?> clazz) {
+        return LAYOUTS.computeIfAbsent(clazz, ClassLayout::new);
+    }
+
+    private static int componentSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * The cached layout of class, includes the shallow size of instance and the
+     * accessible reference fields.
+     */
+    private static final class ClassLayout {
+        private final long shallowSize;
+        private final List<Field> referenceFields = new ArrayList<>();
+
+        private ClassLayout(Class<?> clazz) {
+            long size = OBJECT_HEADER;
+            for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    Class<?> type = field.getType();
+                    size += componentSize(type);
+                    if (!type.isPrimitive()) {
+                        try {
+                            field.setAccessible(true);
+                            referenceFields.add(field);
+                        } catch (RuntimeException e) {
+                            // The field of JDK internals may be inaccessible since Java 9.
+                        }
+                    }
+                }
+            }
+            this.shallowSize = align(size);
+        }
+    }
+}
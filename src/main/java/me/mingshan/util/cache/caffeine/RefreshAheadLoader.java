@@ -0,0 +1,66 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.caffeine;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * The {@link CacheLoader} which reloads the value on the dedicated refresh executor,
+ * the readers get the stale value immediately while the value is reloading. If the refresh
+ * executor rejects the reload, the current value is kept.
+ *
+ * @author mingshan
+ */
+class RefreshAheadLoader implements CacheLoader<Object, Object> {
+    private final Function<Object, Object> loader;
+    private final Executor refreshExecutor;
+    private final RefreshMetrics metrics;
+
+    RefreshAheadLoader(Function<Object, Object> loader, Executor refreshExecutor, RefreshMetrics metrics) {
+        this.loader = loader;
+        this.refreshExecutor = refreshExecutor;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object load(Object key) {
+        return loader.apply(key);
+    }
+
+    @Override
+    public CompletableFuture<Object> asyncReload(Object key, Object oldValue, Executor executor) {
+        CompletableFuture<Object> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> loader.apply(key), refreshExecutor);
+        } catch (RejectedExecutionException e) {
+            // The executor is saturated, keeps the current value quietly, so Caffeine neither
+            // logs nor counts a load failure, and the value is refreshed in the next period.
+            metrics.recordRejected();
+            return CompletableFuture.completedFuture(oldValue);
+        }
+
+        return future.whenComplete((value, error) -> {
+            if (error == null) {
+                metrics.recordSuccess();
+            } else {
+                metrics.recordFailure();
+            }
+        });
+    }
+}
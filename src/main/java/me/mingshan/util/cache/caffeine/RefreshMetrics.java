@@ -0,0 +1,76 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.caffeine;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of refresh-ahead, records the count of successful, failed and rejected refreshes.
+ *
+ * @author mingshan
+ */
+public class RefreshMetrics {
+    private final LongAdder successCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    void recordSuccess() {
+        successCount.increment();
+    }
+
+    void recordFailure() {
+        failureCount.increment();
+    }
+
+    void recordRejected() {
+        rejectedCount.increment();
+    }
+
+    /**
+     * Returns the count of refreshes which are completed successfully.
+     *
+     * @return the count of successful refreshes
+     */
+    public long getSuccessCount() {
+        return successCount.sum();
+    }
+
+    /**
+     * Returns the count of refreshes which are failed.
+     *
+     * @return the count of failed refreshes
+     */
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    /**
+     * Returns the count of refreshes which are rejected by the saturated refresh executor,
+     * the current values are kept for these refreshes.
+     *
+     * @return the count of rejected refreshes
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshMetrics{" +
+            "successCount=" + getSuccessCount() +
+            ", failureCount=" + getFailureCount() +
+            ", rejectedCount=" + getRejectedCount() +
+            '}';
+    }
+}
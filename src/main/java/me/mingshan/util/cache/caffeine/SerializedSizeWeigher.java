@@ -0,0 +1,52 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.caffeine;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import me.mingshan.util.cache.support.ValueCodec;
+
+import java.util.Objects;
+
+/**
+ * The weigher which weighs the entry by the length of serialized value in bytes.
+ * <p>
+ * The value is serialized on every write, so it fits the caches whose values are
+ * written rarely and read frequently.
+ *
+ * @author mingshan
+ */
+public class SerializedSizeWeigher implements Weigher<Object, Object> {
+    private final ValueCodec codec;
+
+    /**
+     * Creates the weigher with the default serializer.
+     */
+    public SerializedSizeWeigher() {
+        this(new ValueCodec());
+    }
+
+    /**
+     * Creates the weigher with the specified codec.
+     *
+     * @param codec the codec of values
+     */
+    public SerializedSizeWeigher(ValueCodec codec) {
+        this.codec = Objects.requireNonNull(codec);
+    }
+
+    @Override
+    public int weigh(Object key, Object value) {
+        return codec.encode(value).length;
+    }
+}
@@ -6,6 +6,10 @@ import java.lang.annotation.*;
  * 该注解只适用于批量删除同一类缓存key的情况，即key的前缀一直，后半部分参数不一致，想把其删除。<br/>
  * 如果需要删除多个没有关系的key，可以使用 Spring的{@code @Caching(evict={})} 相关注解。
  * <br/>
+ * 如果需要删除某个前缀下的全部key，可以使用 {@code pattern = "*"}。
+ * <br/>
+ * 同一个事务中在提交后执行的删除会按缓存合并，重复的 key 只删除一次。
+ * <br/>
  * 使用示例 ：
  * <br/>
  * {@code
@@ -23,9 +27,47 @@ import java.lang.annotation.*;
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface CacheEvictList {
-    /** 完整key的value，相当key的前缀 */
+    /** 完整key的value，相当key的前缀；删除本地缓存时为缓存的名称 */
     String value() default "";
 
     /** key的具体参数，支持SPEL表达式 */
     String key() default "";
+
+    /**
+     * key 的匹配模式，支持 Redis 的通配符，如 {@code *}。设置后忽略 {@link #key()}，
+     * 使用 SCAN 分批遍历 {@code value::pattern} 匹配的 key 并删除，不会使用 KEYS 命令。
+     * 按模式删除总是异步执行，与 {@link #async()} 的设置无关。必须同时设置 {@link #value()}，
+     * 不允许匹配整个库的 key
+     */
+    String pattern() default "";
+
+    /**
+     * 从哪些缓存后端删除，默认只删除 Redis，可以同时指定 {@code local} 删除本地缓存，
+     * 也可以指定切面中注册的其他后端
+     */
+    String[] backends() default {"redis"};
+
+    /** 每条 UNLINK 命令删除的 key 数量，key 较多时分批发送，避免阻塞 Redis；按模式删除时也作为 SCAN 的 COUNT */
+    int batchSize() default 500;
+
+    /** 按模式删除时每秒最多删除的 key 数量，小于等于 0 表示不限速 */
+    int maxKeysPerSecond() default 10000;
+
+    /**
+     * 是否异步删除。开启后在当前事务提交之后（没有事务时立即）提交到线程池执行删除，
+     * 不阻塞业务方法的返回，删除失败只记录日志
+     */
+    boolean async() default false;
+
+    /**
+     * 是否在当前事务提交之后删除，避免事务提交前其他线程把旧数据重新加载到缓存中，
+     * 事务回滚时不删除，没有事务时立即删除
+     */
+    boolean afterCommit() default false;
+
+    /**
+     * 延时双删的延时时间，单位毫秒，大于 0 时在第一次删除后（有事务时在事务提交后）
+     * 延时再删除一次，清除延时期间被读请求回填的旧数据
+     */
+    long doubleDeleteDelay() default 0;
 }
@@ -1,25 +1,41 @@
 package me.mingshan.util.cache.extend.aspect;
 
 import lombok.extern.slf4j.Slf4j;
-import me.mingshan.util.StringUtil;
 import me.mingshan.util.cache.extend.annotation.CacheEvictList;
+import me.mingshan.util.cache.extend.support.CacheEvictBackend;
+import me.mingshan.util.cache.extend.support.CacheEvictListMetadata;
+import me.mingshan.util.cache.extend.support.EvictionBatch;
+import me.mingshan.util.cache.extend.support.LocalCacheEvictBackend;
+import me.mingshan.util.cache.extend.support.RedisCacheEvictBackend;
+import me.mingshan.util.cache.extend.support.RedisKeyEvictor;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.reflect.MethodSignature;
-import org.springframework.core.LocalVariableTableParameterNameDiscoverer;
+import org.springframework.core.MethodClassKey;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.expression.ExpressionParser;
-import org.springframework.expression.spel.standard.SpelExpressionParser;
-import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.CollectionUtils;
 
 import javax.annotation.Resource;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * 批量删除缓存切面
@@ -30,77 +46,267 @@ import java.util.List;
 @Aspect
 @Slf4j
 public class CacheEvictListAspect {
-    /** Spring cache key分隔符 */
-    private static final String SEPARATOR = "::";
-    /** SpEL 表达式标志 */
-    private static final String SPEL_FLAG = "#";
-
     @Resource
     private StringRedisTemplate stringRedisTemplate;
 
+    /** 删除缓存的后端，Redis 后端依赖注入的 stringRedisTemplate，首次使用时创建 */
+    private final Map<String, CacheEvictBackend> backends = new ConcurrentHashMap<>();
+
+    /** 异步删除使用的线程池 */
+    private Executor executor = defaultExecutor();
+
+    /** 按模式删除使用的线程池，按模式删除限速执行，可能持续较长时间，与按 key 删除分开执行 */
+    private Executor patternExecutor = defaultPatternExecutor();
+
+    /** 延时双删使用的调度线程池 */
+    private ScheduledExecutorService scheduler = defaultScheduler();
+
+    /** 方法的元数据缓存，key 为代理对象上的方法和目标对象的类 */
+    private final Map<MethodClassKey, Optional<CacheEvictListMetadata>> metadataCache = new ConcurrentHashMap<>();
+
     @AfterReturning("@annotation(me.mingshan.util.cache.extend.annotation.CacheEvictList)")
     public void remove(JoinPoint point) throws NoSuchMethodException {
+        CacheEvictListMetadata metadata = getMetadata(point);
+        if (metadata == null) {
+            return;
+        }
+        CacheEvictList cacheEvictList = metadata.getAnnotation();
+
+        // 按模式删除，使用 SCAN 遍历匹配的 key
+        String keyPattern = metadata.keyPattern();
+        List<?> keys = null;
+        if (keyPattern == null) {
+            keys = metadata.resolveKeys(point.getArgs());
+            if (CollectionUtils.isEmpty(keys)) {
+                return;
+            }
+        }
+
+        // 按模式删除耗时与匹配的 key 数量成正比，总是异步执行，不阻塞业务方法
+        boolean async = cacheEvictList.async() || keyPattern != null;
+
+        // 每个后端批量删除一次
+        for (String backend : cacheEvictList.backends()) {
+            EvictionBatch batch = new EvictionBatch(backend, metadata.getCacheName(), cacheEvictList);
+            if (keyPattern != null) {
+                batch.addPattern(keyPattern);
+            } else {
+                batch.addKeys(keys);
+            }
+            submit(batch, cacheEvictList, async);
+        }
+    }
+
+    /**
+     * 注册删除缓存的后端，注册后可以在 {@link CacheEvictList#backends()} 中通过名称使用，
+     * 同名的后端会被替换
+     *
+     * @param name 后端名称
+     * @param backend 后端
+     */
+    public void registerBackend(String name, CacheEvictBackend backend) {
+        backends.put(Objects.requireNonNull(name), Objects.requireNonNull(backend));
+    }
+
+    /**
+     * 设置异步删除使用的线程池
+     *
+     * @param executor 线程池
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * 设置按模式删除使用的线程池，不应使用在调用线程执行的拒绝策略，否则会阻塞业务方法
+     *
+     * @param patternExecutor 线程池
+     */
+    public void setPatternExecutor(Executor patternExecutor) {
+        this.patternExecutor = Objects.requireNonNull(patternExecutor);
+    }
+
+    private CacheEvictListMetadata getMetadata(JoinPoint point) throws NoSuchMethodException {
         Signature signature = point.getSignature();
         // 这个方法是代理对象上的
         Method method = ((MethodSignature) signature).getMethod();
+        Class<?> targetClass = point.getTarget().getClass();
+
+        MethodClassKey cacheKey = new MethodClassKey(method, targetClass);
+        Optional<CacheEvictListMetadata> metadata = metadataCache.get(cacheKey);
+        if (metadata == null) {
+            // 这个方法才是目标对象上有注解的方法
+            Method realMethod = targetClass.getDeclaredMethod(signature.getName(), method.getParameterTypes());
+            metadata = Optional.ofNullable(CacheEvictListMetadata.forMethod(realMethod));
+            metadataCache.putIfAbsent(cacheKey, metadata);
+        }
+        return metadata.orElse(null);
+    }
+
+    /**
+     * 设置延时双删使用的调度线程池，延时到期后删除任务仍在 {@link #setExecutor(Executor)} 的线程池中执行
+     *
+     * @param scheduler 调度线程池
+     */
+    public void setScheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = Objects.requireNonNull(scheduler);
+    }
 
-        // 这个方法才是目标对象上有注解的方法
-        Method realMethod = point.getTarget().getClass().getDeclaredMethod(signature.getName(),
-                method.getParameterTypes());
+    private void submit(EvictionBatch batch, CacheEvictList cacheEvictList, boolean async) {
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        boolean afterCommit = inTransaction && (cacheEvictList.afterCommit() || async);
+        long delay = cacheEvictList.doubleDeleteDelay();
 
-        CacheEvictList cacheEvictList = realMethod.getAnnotation(CacheEvictList.class);
-        if (cacheEvictList == null) {
+        if (!afterCommit) {
+            if (async) {
+                dispatch(batch);
+            } else {
+                batch.evict(getBackend(batch.getBackend()));
+            }
+        }
+        if (!inTransaction) {
+            if (delay > 0) {
+                scheduleEviction(batch, delay);
+            }
             return;
         }
+        if (afterCommit || delay > 0) {
+            pendingEvictions().add(batch, afterCommit, async, delay);
+        }
+    }
 
-        String value = cacheEvictList.value();
-        String key = cacheEvictList.key();
-        if (StringUtil.isEmpty(key)) {
-            return;
+    private PendingEvictions pendingEvictions() {
+        PendingEvictions pending = (PendingEvictions) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEvictions();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
         }
+        return pending;
+    }
 
-        String keyPrefix = "";
+    private void scheduleEviction(EvictionBatch batch, long delay) {
+        scheduler.schedule(() -> dispatch(batch), delay, TimeUnit.MILLISECONDS);
+    }
 
-        if (!StringUtil.isEmpty(value)) {
-            keyPrefix = keyPrefix + value + SEPARATOR;
+    /**
+     * 异步删除，按模式删除与按 key 删除分别在各自的线程池中执行，长时间的按模式删除不会延误按 key 的删除
+     */
+    private void dispatch(EvictionBatch batch) {
+        if (batch.hasKeys()) {
+            executor.execute(() -> evictQuietly(batch, EvictionBatch::evictKeys));
         }
+        if (batch.hasPatterns()) {
+            patternExecutor.execute(() -> evictQuietly(batch, EvictionBatch::evictPatterns));
+        }
+    }
 
-        List<String> allKey = new ArrayList<>();
-
-        List<?> parsedList;
-        if (key.contains(SPEL_FLAG)) {
-            parsedList = parseKey(key, method, point.getArgs());
-            if (CollectionUtils.isEmpty(parsedList)) {
-                return;
-            }
+    private void evictQuietly(EvictionBatch batch, BiConsumer<EvictionBatch, CacheEvictBackend> eviction) {
+        try {
+            eviction.accept(batch, getBackend(batch.getBackend()));
+        } catch (Exception e) {
+            log.error("Failed to delete cache keys of {} from {}", batch.getCacheName(), batch.getBackend(), e);
+        }
+    }
 
-            String finalKeyPrefix = keyPrefix;
-            parsedList.forEach(item -> allKey.add(finalKeyPrefix + item));
-        } else {
-            allKey.add(keyPrefix + key);
+    private CacheEvictBackend getBackend(String name) {
+        CacheEvictBackend backend = backends.get(name);
+        if (backend != null) {
+            return backend;
         }
+        switch (name) {
+            case CacheEvictBackend.REDIS:
+                return backends.computeIfAbsent(name,
+                        k -> new RedisCacheEvictBackend(new RedisKeyEvictor(stringRedisTemplate)));
+            case CacheEvictBackend.LOCAL:
+                return backends.computeIfAbsent(name, k -> new LocalCacheEvictBackend());
+            default:
+                throw new IllegalStateException("The cache evict backend [" + name + "] is not registered");
+        }
+    }
+
+    private static ScheduledExecutorService defaultScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "cache-evict-delay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    private static Executor defaultPatternExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor patternExecutor = new ThreadPoolExecutor(2, 2, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(64), r -> {
+                    Thread thread = new Thread(r, "cache-evict-pattern-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (r, e) -> log.error("Too many pending pattern evictions, the eviction is discarded"));
+        patternExecutor.allowCoreThreadTimeOut(true);
+        return patternExecutor;
+    }
 
-        stringRedisTemplate.delete(allKey);
-        log.info("Cache key: {} deleted", allKey);
+    private static Executor defaultExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // 队列满时由调用线程删除，保证删除不会丢失
+        return new ThreadPoolExecutor(1, 4, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1024), r -> {
+            Thread thread = new Thread(r, "cache-evict-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
     /**
-     * Parse key from SpEL
+     * 一个事务中需要在提交后执行的删除，相同后端、缓存和删除方式的删除合并为一批
      */
-    private static List<?> parseKey(String key, Method method, Object[] args) {
-        LocalVariableTableParameterNameDiscoverer u =
-                new LocalVariableTableParameterNameDiscoverer();
-        String[] paraNameArr = u.getParameterNames(method);
-        if (paraNameArr == null || paraNameArr.length == 0) {
-            return Collections.emptyList();
+    private final class PendingEvictions implements TransactionSynchronization {
+        private final Map<List<Object>, Pending> batches = new LinkedHashMap<>();
+
+        void add(EvictionBatch batch, boolean afterCommit, boolean async, long delay) {
+            List<Object> key = Arrays.asList(batch.getBackend(), batch.getCacheName(), afterCommit, async, delay);
+            Pending pending = batches.get(key);
+            if (pending == null) {
+                batches.put(key, new Pending(batch, afterCommit, async, delay));
+            } else {
+                pending.batch.merge(batch);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            for (Pending pending : batches.values()) {
+                if (pending.afterCommit) {
+                    if (pending.async) {
+                        dispatch(pending.batch);
+                    } else {
+                        evictQuietly(pending.batch, EvictionBatch::evict);
+                    }
+                }
+                if (pending.delay > 0) {
+                    scheduleEviction(pending.batch, pending.delay);
+                }
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            // 回滚时丢弃所有删除
+            TransactionSynchronizationManager.unbindResourceIfPossible(CacheEvictListAspect.this);
         }
+    }
 
-        ExpressionParser parser = new SpelExpressionParser();
-        StandardEvaluationContext context = new StandardEvaluationContext();
+    private static final class Pending {
+        private final EvictionBatch batch;
+        private final boolean afterCommit;
+        private final boolean async;
+        private final long delay;
 
-        for (int i = 0; i < paraNameArr.length; i++) {
-            context.setVariable(paraNameArr[i], args[i]);
+        Pending(EvictionBatch batch, boolean afterCommit, boolean async, long delay) {
+            this.batch = batch;
+            this.afterCommit = afterCommit;
+            this.async = async;
+            this.delay = delay;
         }
-        return parser.parseExpression(key).getValue(context, List.class);
     }
 }
@@ -0,0 +1,51 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.extend.support;
+
+import me.mingshan.util.cache.extend.annotation.CacheEvictList;
+
+import java.util.List;
+
+/**
+ * {@link CacheEvictList} 删除缓存的后端，每个后端通过名称注册到切面，
+ * 注解通过 {@link CacheEvictList#backends()} 指定从哪些后端删除。
+ * <p>
+ * 一次调用需要删除的 key 会整体交给后端，由后端自行分批。
+ *
+ * @author mingshan
+ */
+public interface CacheEvictBackend {
+    /** Redis 后端，key 为 {@code value::key} */
+    String REDIS = "redis";
+    /** 本地缓存后端，从 {@link me.mingshan.util.cache.CacheManager} 中名称为 value 的缓存删除 */
+    String LOCAL = "local";
+
+    /**
+     * 删除缓存中的 key
+     *
+     * @param cacheName 缓存名称，即注解的 value，可能为空字符串
+     * @param keys 需要删除的 key，为 SpEL 表达式计算的原始值，不包含缓存名称前缀
+     * @param cacheEvictList 注解
+     */
+    void evict(String cacheName, List<?> keys, CacheEvictList cacheEvictList);
+
+    /**
+     * 删除缓存中匹配模式的 key
+     *
+     * @param cacheName 缓存名称，即注解的 value，可能为空字符串
+     * @param pattern key 的匹配模式，不包含缓存名称前缀
+     * @param cacheEvictList 注解
+     */
+    void evictByPattern(String cacheName, String pattern, CacheEvictList cacheEvictList);
+}
@@ -0,0 +1,127 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.extend.support;
+
+import me.mingshan.util.StringUtil;
+import me.mingshan.util.cache.extend.annotation.CacheEvictList;
+import org.springframework.core.LocalVariableTableParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link CacheEvictList} 注解方法的元数据，包括注解、参数名以及解析好的 SpEL 表达式。
+ * <p>
+ * 元数据只与方法有关，解析一次后由切面按方法缓存，避免每次调用都重新反射查找方法、
+ * 读取参数名和解析表达式。SpEL 表达式使用 {@link SpelCompilerMode#MIXED} 模式，
+ * 多次求值后编译为字节码执行；编译后的代码与参数的具体类型有关，参数类型变化导致执行失败时
+ * 退回解释执行并重新编译。
+ *
+ * @author mingshan
+ */
+public final class CacheEvictListMetadata {
+    /** SpEL 表达式标志 */
+    private static final String SPEL_FLAG = "#";
+
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER =
+            new LocalVariableTableParameterNameDiscoverer();
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, CacheEvictListMetadata.class.getClassLoader()));
+
+    private final CacheEvictList annotation;
+    private final String key;
+    private final Expression expression;
+    private final String[] parameterNames;
+
+    private CacheEvictListMetadata(CacheEvictList annotation, Method method) {
+        if (!StringUtil.isEmpty(annotation.pattern()) && StringUtil.isEmpty(annotation.value())) {
+            throw new IllegalStateException("The pattern of @CacheEvictList on " + method + " requires a value");
+        }
+        this.annotation = annotation;
+        this.key = annotation.key();
+        if (!StringUtil.isEmpty(key) && key.contains(SPEL_FLAG)) {
+            this.expression = PARSER.parseExpression(key);
+            this.parameterNames = PARAMETER_NAME_DISCOVERER.getParameterNames(method);
+        } else {
+            this.expression = null;
+            this.parameterNames = null;
+        }
+    }
+
+    /**
+     * 解析方法上的 {@link CacheEvictList} 注解
+     *
+     * @param method 目标对象上的方法
+     * @return 方法的元数据，方法上没有注解时返回 {@code null}
+     * @throws IllegalStateException 设置了 pattern 但没有设置 value 时抛出，避免删除整个库的 key
+     */
+    public static CacheEvictListMetadata forMethod(Method method) {
+        CacheEvictList annotation = method.getAnnotation(CacheEvictList.class);
+        return annotation == null ? null : new CacheEvictListMetadata(annotation, method);
+    }
+
+    public CacheEvictList getAnnotation() {
+        return annotation;
+    }
+
+    /**
+     * 返回缓存名称，即注解的 value
+     *
+     * @return 缓存名称，可能为空字符串
+     */
+    public String getCacheName() {
+        return annotation.value();
+    }
+
+    /**
+     * 返回按模式删除时 key 的匹配模式
+     *
+     * @return key 匹配模式，不包含缓存名称前缀，没有设置 {@link CacheEvictList#pattern()} 时返回 {@code null}
+     */
+    public String keyPattern() {
+        return StringUtil.isEmpty(annotation.pattern()) ? null : annotation.pattern();
+    }
+
+    /**
+     * 根据方法参数计算需要删除的 key
+     *
+     * @param args 方法参数
+     * @return 需要删除的 key，不包含缓存名称前缀，没有需要删除的 key 时返回空集合
+     */
+    public List<?> resolveKeys(Object[] args) {
+        if (StringUtil.isEmpty(key)) {
+            return Collections.emptyList();
+        }
+        if (expression == null) {
+            return Collections.singletonList(key);
+        }
+        if (parameterNames == null || parameterNames.length == 0) {
+            return Collections.emptyList();
+        }
+
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        for (int i = 0; i < parameterNames.length; i++) {
+            context.setVariable(parameterNames[i], args[i]);
+        }
+        List<?> parsedList = expression.getValue(context, List.class);
+        return parsedList == null ? Collections.emptyList() : parsedList;
+    }
+}
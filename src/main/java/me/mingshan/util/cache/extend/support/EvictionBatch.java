@@ -0,0 +1,113 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.extend.support;
+
+import me.mingshan.util.cache.extend.annotation.CacheEvictList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 对同一个后端中同一个缓存的一批删除，同一个事务中多次调用的 key 和匹配模式会合并到一批中，
+ * 重复的 key 只删除一次。
+ *
+ * @author mingshan
+ */
+public final class EvictionBatch {
+    private final String backend;
+    private final String cacheName;
+    private final CacheEvictList cacheEvictList;
+    private final Set<Object> keys = new LinkedHashSet<>();
+    private final Set<String> patterns = new LinkedHashSet<>();
+
+    /**
+     * 创建一批删除，批量大小、限速等参数使用第一次调用的注解
+     *
+     * @param backend 后端名称
+     * @param cacheName 缓存名称
+     * @param cacheEvictList 注解
+     */
+    public EvictionBatch(String backend, String cacheName, CacheEvictList cacheEvictList) {
+        this.backend = Objects.requireNonNull(backend);
+        this.cacheName = Objects.requireNonNull(cacheName);
+        this.cacheEvictList = Objects.requireNonNull(cacheEvictList);
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public EvictionBatch addKeys(Collection<?> keys) {
+        this.keys.addAll(keys);
+        return this;
+    }
+
+    public EvictionBatch addPattern(String pattern) {
+        this.patterns.add(pattern);
+        return this;
+    }
+
+    public EvictionBatch merge(EvictionBatch other) {
+        this.keys.addAll(other.keys);
+        this.patterns.addAll(other.patterns);
+        return this;
+    }
+
+    public boolean hasKeys() {
+        return !keys.isEmpty();
+    }
+
+    public boolean hasPatterns() {
+        return !patterns.isEmpty();
+    }
+
+    /**
+     * 从后端删除这一批 key
+     *
+     * @param evictBackend 后端
+     */
+    public void evict(CacheEvictBackend evictBackend) {
+        evictPatterns(evictBackend);
+        evictKeys(evictBackend);
+    }
+
+    /**
+     * 从后端删除这一批中匹配模式的 key
+     *
+     * @param evictBackend 后端
+     */
+    public void evictPatterns(CacheEvictBackend evictBackend) {
+        for (String pattern : patterns) {
+            evictBackend.evictByPattern(cacheName, pattern, cacheEvictList);
+        }
+    }
+
+    /**
+     * 从后端删除这一批中指定的 key
+     *
+     * @param evictBackend 后端
+     */
+    public void evictKeys(CacheEvictBackend evictBackend) {
+        if (!keys.isEmpty()) {
+            evictBackend.evict(cacheName, new ArrayList<>(keys), cacheEvictList);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.extend.support;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mingshan.util.StringUtil;
+import me.mingshan.util.cache.Cache;
+import me.mingshan.util.cache.CacheManager;
+import me.mingshan.util.cache.extend.annotation.CacheEvictList;
+
+import java.util.List;
+
+/**
+ * 从本地缓存删除，缓存为 {@link CacheManager} 中以注解的 value 为名称注册的 {@link Cache}，
+ * 如 {@link me.mingshan.util.cache.caffeine.CaffeineCache}。
+ * <p>
+ * 本地缓存的 key 为 SpEL 表达式计算的原始值，不拼接前缀，一次调用的 key 通过
+ * {@link Cache#evictAll(Iterable)} 批量删除。{@link Cache} 无法遍历 key，
+ * 所以按模式删除时会清空整个缓存，保证不会残留旧数据。
+ *
+ * @author mingshan
+ */
+@Slf4j
+public class LocalCacheEvictBackend implements CacheEvictBackend {
+
+    @Override
+    public void evict(String cacheName, List<?> keys, CacheEvictList cacheEvictList) {
+        Cache cache = getCache(cacheName);
+        if (cache != null) {
+            cache.evictAll(keys);
+            log.info("{} cache keys deleted from local cache {}", keys.size(), cacheName);
+        }
+    }
+
+    @Override
+    public void evictByPattern(String cacheName, String pattern, CacheEvictList cacheEvictList) {
+        Cache cache = getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+            log.info("Local cache {} cleared by pattern {}", cacheName, pattern);
+        }
+    }
+
+    private static Cache getCache(String cacheName) {
+        if (StringUtil.isEmpty(cacheName)) {
+            log.warn("The value of @CacheEvictList is required to evict local cache");
+            return null;
+        }
+        Cache cache = CacheManager.getCache(cacheName);
+        if (cache == null) {
+            log.debug("Local cache {} does not exist", cacheName);
+        }
+        return cache;
+    }
+}
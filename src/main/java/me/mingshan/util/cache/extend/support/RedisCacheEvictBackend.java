@@ -0,0 +1,69 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.extend.support;
+
+import lombok.extern.slf4j.Slf4j;
+import me.mingshan.util.StringUtil;
+import me.mingshan.util.cache.extend.annotation.CacheEvictList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 从 Redis 删除缓存，key 的格式与 Spring cache 一致，为 {@code value::key}。
+ *
+ * @author mingshan
+ */
+@Slf4j
+public class RedisCacheEvictBackend implements CacheEvictBackend {
+    /** Spring cache key分隔符 */
+    private static final String SEPARATOR = "::";
+
+    private final RedisKeyEvictor evictor;
+
+    public RedisCacheEvictBackend(RedisKeyEvictor evictor) {
+        this.evictor = Objects.requireNonNull(evictor);
+    }
+
+    @Override
+    public void evict(String cacheName, List<?> keys, CacheEvictList cacheEvictList) {
+        String keyPrefix = keyPrefix(cacheName);
+        List<String> allKey = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            allKey.add(keyPrefix + key);
+        }
+        evictor.evict(allKey, cacheEvictList.batchSize());
+        log.info("{} cache keys deleted from Redis", allKey.size());
+        if (log.isDebugEnabled()) {
+            log.debug("Cache key: {} deleted", allKey);
+        }
+    }
+
+    @Override
+    public void evictByPattern(String cacheName, String pattern, CacheEvictList cacheEvictList) {
+        // 没有缓存名称前缀的模式会匹配整个库的 key
+        if (StringUtil.isEmpty(cacheName)) {
+            throw new IllegalArgumentException("The pattern eviction requires a cache name");
+        }
+        String keyPattern = cacheName + SEPARATOR + pattern;
+        long deleted = evictor.evictByPattern(keyPattern, cacheEvictList.batchSize(),
+                cacheEvictList.maxKeysPerSecond());
+        log.info("{} cache keys matching {} deleted from Redis", deleted, keyPattern);
+    }
+
+    private static String keyPrefix(String cacheName) {
+        return StringUtil.isEmpty(cacheName) ? "" : cacheName + SEPARATOR;
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.extend.support;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分批删除 Redis 缓存 key。
+ * <p>
+ * 大量的 key 按 {@code batchSize} 拆分成多条 UNLINK 命令，通过 pipeline 发送，
+ * 每个 pipeline 最多包含 {@value #COMMANDS_PER_PIPELINE} 条命令。这样既避免了单条巨大的 DEL
+ * 命令阻塞 Redis，也避免了逐条删除带来的大量网络往返。UNLINK 在 Redis 后台线程释放内存，
+ * 如果 Redis 版本低于 4.0 不支持 UNLINK，则自动退化为 DEL。
+ * <p>
+ * 按模式删除时使用基于游标的 SCAN 分批遍历匹配的 key，绝不使用 KEYS，
+ * 并按每秒删除的 key 数量限速，避免在生产负载下长时间占用 Redis 及其连接。
+ *
+ * @author mingshan
+ */
+@Slf4j
+public class RedisKeyEvictor {
+    /** 默认每条命令删除的 key 数量 */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** 每个 pipeline 最多包含的命令数量 */
+    private static final int COMMANDS_PER_PIPELINE = 16;
+
+    /** SCAN 的起始游标，返回该游标表示遍历结束 */
+    private static final String SCAN_START = "0";
+
+    /**
+     * 执行一步 SCAN 并删除返回的 key，返回下一步的游标和删除的数量。SCAN 是不确定的命令，
+     * Redis 5.0 之前需要开启命令复制才能在其后执行写命令；unpack 的参数数量有限，分段删除
+     */
+    private static final String SCAN_AND_DELETE_SCRIPT = "redis.replicate_commands()\n"
+        + "local result = redis.call('SCAN', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])\n"
+        + "local keys = result[2]\n"
+        + "local deleted = 0\n"
+        + "for i = 1, #keys, 1000 do\n"
+        + "  deleted = deleted + redis.call(ARGV[4], unpack(keys, i, math.min(i + 999, #keys)))\n"
+        + "end\n"
+        + "return {result[1], deleted}";
+
+    private static final RedisScript<List<Object>> SCAN_AND_DELETE = scanAndDeleteScript();
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private volatile boolean unlinkSupported = true;
+
+    public RedisKeyEvictor(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = Objects.requireNonNull(stringRedisTemplate);
+    }
+
+    /**
+     * 分批删除 key
+     *
+     * @param keys 需要删除的 key
+     * @param batchSize 每条命令删除的 key 数量
+     */
+    public void evict(Collection<String> keys, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+
+        RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+        List<byte[][]> commands = new ArrayList<>(COMMANDS_PER_PIPELINE);
+        byte[][] rawKeys = null;
+        int index = 0;
+        int remaining = keys.size();
+        for (String key : keys) {
+            if (rawKeys == null) {
+                rawKeys = new byte[Math.min(batchSize, remaining)][];
+                index = 0;
+            }
+            rawKeys[index++] = serializer.serialize(key);
+            remaining--;
+            if (index == rawKeys.length) {
+                commands.add(rawKeys);
+                rawKeys = null;
+                if (commands.size() == COMMANDS_PER_PIPELINE) {
+                    execute(commands);
+                    commands.clear();
+                }
+            }
+        }
+        if (!commands.isEmpty()) {
+            execute(commands);
+        }
+    }
+
+    /**
+     * 使用 SCAN 遍历匹配模式的 key 并分批删除，删除速度不超过 {@code maxKeysPerSecond}。
+     * <p>
+     * 每一步 SCAN 及删除这一步返回的 key 通过一个脚本在一次短连接中完成，并把游标带到下一步，
+     * 限速等待时不占用 Redis 连接。该方法会阻塞当前线程直到删除完成，线程被中断时停止删除。
+     *
+     * @param pattern key 的匹配模式，如 {@code user::*}
+     * @param batchSize SCAN 的 COUNT
+     * @param maxKeysPerSecond 每秒最多删除的 key 数量，小于等于 0 表示不限速
+     * @return 删除的 key 数量
+     */
+    public long evictByPattern(String pattern, int batchSize, int maxKeysPerSecond) {
+        Objects.requireNonNull(pattern);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+
+        RateLimiter rateLimiter = new RateLimiter(maxKeysPerSecond);
+        String cursor = SCAN_START;
+        long count = 0;
+        do {
+            List<Object> result = scanAndDelete(cursor, pattern, batchSize);
+            cursor = string(result.get(0));
+            long deleted = ((Number) result.get(1)).longValue();
+            count += deleted;
+            if (!SCAN_START.equals(cursor) && !rateLimiter.acquire(deleted)) {
+                log.warn("Interrupted while deleting cache keys matching {}, {} deleted", pattern, count);
+                return count;
+            }
+        } while (!SCAN_START.equals(cursor));
+        return count;
+    }
+
+    private List<Object> scanAndDelete(String cursor, String pattern, int batchSize) {
+        String count = String.valueOf(batchSize);
+        if (unlinkSupported) {
+            try {
+                return stringRedisTemplate.execute(SCAN_AND_DELETE, Collections.emptyList(),
+                    cursor, pattern, count, "UNLINK");
+            } catch (DataAccessException e) {
+                if (!isUnknownCommand(e)) {
+                    throw e;
+                }
+                unlinkSupported = false;
+                log.warn("UNLINK is not supported by Redis, fall back to DEL");
+            }
+        }
+        // 脚本在删除前失败，没有写入，可以从同一个游标重试
+        return stringRedisTemplate.execute(SCAN_AND_DELETE, Collections.emptyList(),
+            cursor, pattern, count, "DEL");
+    }
+
+    private static String string(Object value) {
+        return value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static RedisScript<List<Object>> scanAndDeleteScript() {
+        return (RedisScript) new DefaultRedisScript<>(SCAN_AND_DELETE_SCRIPT, List.class);
+    }
+
+    private void execute(List<byte[][]> commands) {
+        if (unlinkSupported) {
+            try {
+                pipeline(commands, true);
+                return;
+            } catch (DataAccessException e) {
+                if (!isUnknownCommand(e)) {
+                    throw e;
+                }
+                unlinkSupported = false;
+                log.warn("UNLINK is not supported by Redis, fall back to DEL");
+            }
+        }
+        pipeline(commands, false);
+    }
+
+    private void pipeline(List<byte[][]> commands, boolean unlink) {
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (byte[][] rawKeys : commands) {
+                if (unlink) {
+                    connection.keyCommands().unlink(rawKeys);
+                } else {
+                    connection.keyCommands().del(rawKeys);
+                }
+            }
+            return null;
+        });
+    }
+
+    private static boolean isUnknownCommand(DataAccessException e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        String message = cause.getMessage();
+        if (message == null) {
+            return false;
+        }
+        // 脚本中调用未知命令时为 Unknown Redis command
+        String lowerCase = message.toLowerCase();
+        return lowerCase.contains("unknown command") || lowerCase.contains("unknown redis command");
+    }
+
+    /**
+     * 按固定速率放行，调用方处理完一批后等待到这批的配额用完
+     */
+    private static final class RateLimiter {
+        private final long nanosPerPermit;
+        private final long startNanos = System.nanoTime();
+        private long permits;
+
+        RateLimiter(int permitsPerSecond) {
+            this.nanosPerPermit = permitsPerSecond <= 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        }
+
+        boolean acquire(long n) {
+            if (nanosPerPermit == 0) {
+                return true;
+            }
+            permits += n;
+            long waitNanos = permits * nanosPerPermit - (System.nanoTime() - startNanos);
+            if (waitNanos <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
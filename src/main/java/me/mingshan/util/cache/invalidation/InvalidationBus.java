@@ -0,0 +1,219 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.invalidation;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import me.mingshan.util.cache.Cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bus which broadcasts the invalidations of keys to the other nodes, so the other
+ * nodes drop the local copies of keys.
+ * <p>
+ * The invalidations are batched and coalesced within a short window, the keys of the same
+ * cache are published in one message. The messages published by the current node are
+ * ignored when received.
+ *
+ * @author mingshan
+ */
+@Slf4j
+public class InvalidationBus {
+    /** The default window of batching invalidations */
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(20);
+
+    /** The default maximum count of keys in one window */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1_000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final InvalidationTransport transport;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ConcurrentMap<String, Cache> localCaches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    private Map<String, Set<Object>> pendingKeys = new HashMap<>();
+    private Set<String> pendingClears = new HashSet<>();
+    private int pendingCount;
+    private boolean flushScheduled;
+
+    public InvalidationBus(InvalidationTransport transport) {
+        this(transport, DEFAULT_WINDOW, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Creates the bus.
+     *
+     * @param transport the transport of messages
+     * @param window the window of batching invalidations, {@link Duration#ZERO} means publishing immediately
+     * @param maxBatchSize the maximum count of keys in one window, the pending keys are published
+     *                     immediately if the count is reached
+     */
+    public InvalidationBus(InvalidationTransport transport, Duration window, int maxBatchSize) {
+        this.transport = Objects.requireNonNull(transport);
+        this.windowMillis = window.toMillis();
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("cache-invalidation-%d").setDaemon(true).build());
+        this.transport.subscribe(this::onMessage);
+    }
+
+    /**
+     * Registers the local cache, the local cache drops the keys invalidated by the other nodes.
+     *
+     * @param cacheName the name of cache
+     * @param localCache the local cache
+     */
+    public void register(String cacheName, Cache localCache) {
+        localCaches.put(Objects.requireNonNull(cacheName), Objects.requireNonNull(localCache));
+    }
+
+    /**
+     * Broadcasts the invalidation of the specified keys.
+     *
+     * @param cacheName the name of cache
+     * @param keys the keys to invalidate
+     */
+    public void invalidate(String cacheName, Iterable<?> keys) {
+        Objects.requireNonNull(cacheName);
+        Objects.requireNonNull(keys);
+        boolean flushNow;
+        synchronized (lock) {
+            if (!pendingClears.contains(cacheName)) {
+                Set<Object> cacheKeys = pendingKeys.computeIfAbsent(cacheName, name -> new LinkedHashSet<>());
+                for (Object key : keys) {
+                    if (cacheKeys.add(key)) {
+                        pendingCount++;
+                    }
+                }
+            }
+            flushNow = scheduleFlush();
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    /**
+     * Broadcasts the invalidation of all keys of the specified cache.
+     *
+     * @param cacheName the name of cache
+     */
+    public void invalidateAll(String cacheName) {
+        Objects.requireNonNull(cacheName);
+        boolean flushNow;
+        synchronized (lock) {
+            Set<Object> cacheKeys = pendingKeys.remove(cacheName);
+            if (cacheKeys != null) {
+                pendingCount -= cacheKeys.size();
+            }
+            pendingClears.add(cacheName);
+            flushNow = scheduleFlush();
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    /**
+     * Publishes the pending invalidations immediately.
+     */
+    public void flush() {
+        Map<String, Set<Object>> keysToPublish;
+        Set<String> clearsToPublish;
+        synchronized (lock) {
+            keysToPublish = pendingKeys;
+            clearsToPublish = pendingClears;
+            pendingKeys = new HashMap<>();
+            pendingClears = new HashSet<>();
+            pendingCount = 0;
+            flushScheduled = false;
+        }
+
+        for (String cacheName : clearsToPublish) {
+            publish(new InvalidationMessage(nodeId, cacheName, null, true));
+        }
+        keysToPublish.forEach((cacheName, keys) ->
+            publish(new InvalidationMessage(nodeId, cacheName, new ArrayList<>(keys), false)));
+    }
+
+    /**
+     * Publishes the pending invalidations and closes the bus.
+     */
+    public void close() {
+        flush();
+        scheduler.shutdown();
+        transport.close();
+    }
+
+    /**
+     * Returns the id of the current node.
+     *
+     * @return the id of node
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // Must be called with lock held, returns true if the pending invalidations should be published now.
+    private boolean scheduleFlush() {
+        if (windowMillis <= 0 || pendingCount >= maxBatchSize) {
+            return true;
+        }
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return false;
+    }
+
+    private void publish(InvalidationMessage message) {
+        try {
+            transport.publish(message);
+        } catch (Exception e) {
+            log.warn("Failed to publish cache invalidation: {}", message, e);
+        }
+    }
+
+    private void onMessage(InvalidationMessage message) {
+        if (nodeId.equals(message.getSource())) {
+            return;
+        }
+        Cache localCache = localCaches.get(message.getCacheName());
+        if (localCache == null) {
+            return;
+        }
+
+        if (message.isAll()) {
+            localCache.clear();
+        } else if (message.getKeys() != null) {
+            localCache.evictAll(message.getKeys());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.invalidation;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The message which notifies the other nodes to drop the local copies of keys.
+ *
+ * @author mingshan
+ */
+public class InvalidationMessage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** The id of node which publishes the message */
+    private String source;
+
+    /** The name of cache */
+    private String cacheName;
+
+    /** The keys to invalidate */
+    private List<Object> keys;
+
+    /** Whether to invalidate all keys of the cache */
+    private boolean all;
+
+    public InvalidationMessage() {
+    }
+
+    public InvalidationMessage(String source, String cacheName, List<Object> keys, boolean all) {
+        this.source = source;
+        this.cacheName = cacheName;
+        this.keys = keys;
+        this.all = all;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public List<Object> getKeys() {
+        return keys;
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    @Override
+    public String toString() {
+        return "InvalidationMessage{" +
+            "source='" + source + '\'' +
+            ", cacheName='" + cacheName + '\'' +
+            ", keys=" + keys +
+            ", all=" + all +
+            '}';
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * The transport which delivers {@link InvalidationMessage} between nodes.
+ *
+ * @author mingshan
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Publishes the message to all nodes, including the current node.
+     *
+     * @param message the message
+     */
+    void publish(InvalidationMessage message);
+
+    /**
+     * Subscribes the messages published by all nodes.
+     *
+     * @param listener the listener of messages
+     */
+    void subscribe(Consumer<InvalidationMessage> listener);
+
+    /**
+     * Closes the transport and releases the resources.
+     */
+    void close();
+}
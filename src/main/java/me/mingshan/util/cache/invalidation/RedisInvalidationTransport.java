@@ -0,0 +1,89 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.invalidation;
+
+import me.mingshan.util.serialize.Serializer;
+import me.mingshan.util.serialize.SerializerHolder;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * The transport which delivers messages via Redis pub/sub, the messages are encoded
+ * by {@link SerializerHolder#serializerImpl()}.
+ *
+ * @author mingshan
+ */
+public class RedisInvalidationTransport implements InvalidationTransport {
+    /** The default channel of invalidation messages */
+    public static final String DEFAULT_CHANNEL = "hutils:cache:invalidation";
+
+    private final RedisConnectionFactory connectionFactory;
+    private final String channel;
+    private final Serializer serializer = SerializerHolder.serializerImpl();
+    private volatile RedisMessageListenerContainer container;
+
+    public RedisInvalidationTransport(RedisConnectionFactory connectionFactory) {
+        this(connectionFactory, DEFAULT_CHANNEL);
+    }
+
+    public RedisInvalidationTransport(RedisConnectionFactory connectionFactory, String channel) {
+        this.connectionFactory = Objects.requireNonNull(connectionFactory);
+        this.channel = Objects.requireNonNull(channel);
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        Objects.requireNonNull(message);
+        byte[] body = serializer.serializeObject(message);
+        RedisConnection connection = connectionFactory.getConnection();
+        try {
+            connection.publish(channel.getBytes(StandardCharsets.UTF_8), body);
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<InvalidationMessage> listener) {
+        Objects.requireNonNull(listener);
+        if (container == null) {
+            RedisMessageListenerContainer newContainer = new RedisMessageListenerContainer();
+            newContainer.setConnectionFactory(connectionFactory);
+            newContainer.afterPropertiesSet();
+            newContainer.start();
+            container = newContainer;
+        }
+        container.addMessageListener((message, pattern) ->
+            listener.accept(serializer.deserializeObject(message.getBody(), InvalidationMessage.class)),
+            new ChannelTopic(channel));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (container != null) {
+            try {
+                container.destroy();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            container = null;
+        }
+    }
+}
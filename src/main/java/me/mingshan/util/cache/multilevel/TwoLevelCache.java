@@ -0,0 +1,245 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.multilevel;
+
+import me.mingshan.util.cache.Cache;
+import me.mingshan.util.cache.ValueWrapper;
+import me.mingshan.util.cache.invalidation.InvalidationBus;
+import me.mingshan.util.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * The two-level cache, the local cache (e.g. {@link me.mingshan.util.cache.caffeine.CaffeineCache})
+ * is in front of the remote cache (e.g. {@link me.mingshan.util.cache.redis.RedisCache}).
+ * <p>
+ * The reads are served by the local cache first and read through to the remote cache on miss,
+ * the writes go to the remote cache and then the local cache.
+ * <p>
+ * If an {@link InvalidationBus} is given, the writes and evictions are broadcast to the other
+ * nodes, so they drop the stale local copies and read the new value from the remote cache.
+ *
+ * @author mingshan
+ */
+public class TwoLevelCache implements Cache {
+    private final String name;
+    private final Cache localCache;
+    private final Cache remoteCache;
+    private final InvalidationBus invalidationBus;
+
+    /**
+     * Creates the two-level cache.
+     *
+     * @param name the name of cache
+     * @param localCache the local cache, which is level 1
+     * @param remoteCache the remote cache, which is level 2
+     */
+    public TwoLevelCache(String name, Cache localCache, Cache remoteCache) {
+        this(name, localCache, remoteCache, null);
+    }
+
+    /**
+     * Creates the two-level cache which broadcasts the invalidations to the other nodes.
+     *
+     * @param name the name of cache
+     * @param localCache the local cache, which is level 1
+     * @param remoteCache the remote cache, which is level 2
+     * @param invalidationBus the bus of invalidations, may be {@code null}
+     */
+    public TwoLevelCache(String name, Cache localCache, Cache remoteCache, InvalidationBus invalidationBus) {
+        this.name = Objects.requireNonNull(name);
+        this.localCache = Objects.requireNonNull(localCache);
+        this.remoteCache = Objects.requireNonNull(remoteCache);
+        this.invalidationBus = invalidationBus;
+        if (invalidationBus != null) {
+            invalidationBus.register(name, localCache);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Objects.requireNonNull(key);
+        Object value = this.localCache.get(key);
+        if (value == null) {
+            value = this.remoteCache.get(key);
+            if (value != null) {
+                this.localCache.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public ValueWrapper lookup(Object key) {
+        Objects.requireNonNull(key);
+        ValueWrapper wrapper = this.localCache.lookup(key);
+        if (wrapper == null) {
+            wrapper = this.remoteCache.lookup(key);
+            if (wrapper != null && !wrapper.isAbsent()) {
+                this.localCache.put(key, wrapper.get());
+            }
+        }
+        return wrapper;
+    }
+
+    @Override
+    public Object get(Object key, Function<Object, Object> loader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        return this.localCache.get(key, k -> this.remoteCache.get(k, loader));
+    }
+
+    @Override
+    public CompletableFuture<Object> getAsync(Object key, Function<Object, CompletableFuture<Object>> loader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        // The remote lookup is asynchronous too, e.g. the Redis cache runs it on its executor.
+        return this.localCache.getAsync(key, k -> this.remoteCache.getAsync(k, loader));
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Iterable<?> keys) {
+        Objects.requireNonNull(keys);
+        Map<Object, Object> result = new HashMap<>(this.localCache.getAll(keys));
+        Set<Object> missingKeys = new HashSet<>();
+        for (Object key : keys) {
+            if (!result.containsKey(key)) {
+                missingKeys.add(key);
+            }
+        }
+        if (!missingKeys.isEmpty()) {
+            Map<Object, Object> remoteValues = this.remoteCache.getAll(missingKeys);
+            if (!remoteValues.isEmpty()) {
+                this.localCache.putAll(remoteValues);
+                result.putAll(remoteValues);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Iterable<?> keys, Function<Set<Object>, Map<Object, Object>> loader) {
+        Objects.requireNonNull(keys);
+        Objects.requireNonNull(loader);
+        return this.localCache.getAll(keys, missingKeys -> this.remoteCache.getAll(missingKeys, loader));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Objects.requireNonNull(key);
+        this.remoteCache.put(key, value);
+        this.localCache.put(key, value);
+        broadcast(Collections.singleton(key));
+    }
+
+    @Override
+    public void put(Object key, Object value, Duration ttl) {
+        Objects.requireNonNull(key);
+        this.remoteCache.put(key, value, ttl);
+        this.localCache.put(key, value, ttl);
+        broadcast(Collections.singleton(key));
+    }
+
+    @Override
+    public void putAll(Map<?, ?> map) {
+        Objects.requireNonNull(map);
+        this.remoteCache.putAll(map);
+        this.localCache.putAll(map);
+        broadcast(map.keySet());
+    }
+
+    @Override
+    public Object putIfPresent(Object key, Object value) {
+        Objects.requireNonNull(key);
+        Object existingValue = this.remoteCache.putIfPresent(key, value);
+        this.localCache.put(key, existingValue == null ? value : existingValue);
+        if (existingValue == null) {
+            broadcast(Collections.singleton(key));
+        }
+        return existingValue;
+    }
+
+    @Override
+    public void evict(Object key) {
+        Objects.requireNonNull(key);
+        this.remoteCache.evict(key);
+        this.localCache.evict(key);
+        broadcast(Collections.singleton(key));
+    }
+
+    @Override
+    public void evictAll(Iterable<?> keys) {
+        Objects.requireNonNull(keys);
+        this.remoteCache.evictAll(keys);
+        this.localCache.evictAll(keys);
+        broadcast(keys);
+    }
+
+    @Override
+    public void clear() {
+        this.remoteCache.clear();
+        this.localCache.clear();
+        if (this.invalidationBus != null) {
+            this.invalidationBus.invalidateAll(this.name);
+        }
+    }
+
+    /**
+     * Returns the statistics of the local cache, the statistics of the remote cache
+     * can be got by {@code getRemoteCache().stats()}.
+     *
+     * @return the statistics of the local cache
+     */
+    @Override
+    public CacheStats stats() {
+        return this.localCache.stats();
+    }
+
+    private void broadcast(Iterable<?> keys) {
+        if (this.invalidationBus != null) {
+            this.invalidationBus.invalidate(this.name, keys);
+        }
+    }
+
+    /**
+     * Returns the local cache, which is level 1.
+     *
+     * @return the local cache
+     */
+    public Cache getLocalCache() {
+        return this.localCache;
+    }
+
+    /**
+     * Returns the remote cache, which is level 2.
+     *
+     * @return the remote cache
+     */
+    public Cache getRemoteCache() {
+        return this.remoteCache;
+    }
+}
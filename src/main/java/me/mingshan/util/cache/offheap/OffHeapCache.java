@@ -0,0 +1,475 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.offheap;
+
+import com.google.common.util.concurrent.Striped;
+import me.mingshan.util.cache.Cache;
+import me.mingshan.util.cache.stats.CacheStats;
+import me.mingshan.util.cache.support.SingleFlightLoader;
+import me.mingshan.util.cache.support.ValueCodec;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * The cache implementation which stores the values out of Java heap, the values are encoded
+ * by {@link ValueCodec} and stored in direct {@link ByteBuffer}s, so the large value sets
+ * do not put pressure on GC.
+ * <p>
+ * The memory is split into segments, each segment has its own lock, hash index and
+ * direct buffer. The buffer is divided into fixed-size blocks, a value occupies a chain
+ * of blocks, so there is no fragmentation. If the free blocks are not enough, the least
+ * recently used entries of the segment are evicted.
+ * <p>
+ * The keys and the index are on heap. To use it as an overflow tier behind Caffeine,
+ * wraps them with {@link me.mingshan.util.cache.multilevel.TwoLevelCache}.
+ *
+ * @author mingshan
+ */
+public class OffHeapCache implements Cache {
+    /** The default size of block */
+    public static final int DEFAULT_BLOCK_SIZE = 256;
+
+    /** The default count of segments */
+    public static final int DEFAULT_SEGMENT_COUNT = 16;
+
+    private final String name;
+    private final ValueCodec codec;
+    private final int blockSize;
+    private final Segment[] segments;
+    private final Striped<Lock> loadLocks = Striped.lazyWeakLock(64);
+    private final SingleFlightLoader singleFlightLoader = new SingleFlightLoader();
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    /**
+     * Creates the cache with the default block size and segment count.
+     *
+     * @param name the name of cache
+     * @param capacity the byte budget of cache
+     */
+    public OffHeapCache(String name, long capacity) {
+        this(name, capacity, DEFAULT_BLOCK_SIZE, DEFAULT_SEGMENT_COUNT, new ValueCodec());
+    }
+
+    /**
+     * Creates the cache.
+     *
+     * @param name the name of cache
+     * @param capacity the byte budget of cache
+     * @param blockSize the size of block, the smaller size wastes less memory but needs more blocks per value
+     * @param segmentCount the count of segments, must be power of two
+     * @param codec the codec of values
+     */
+    public OffHeapCache(String name, long capacity, int blockSize, int segmentCount, ValueCodec codec) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        if (segmentCount <= 0 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("segmentCount must be power of two");
+        }
+        long blocksPerSegment = capacity / segmentCount / blockSize;
+        if (blocksPerSegment <= 0) {
+            throw new IllegalArgumentException("capacity is too small");
+        }
+        if (blocksPerSegment * blockSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("capacity is too large, increase segmentCount");
+        }
+
+        this.name = Objects.requireNonNull(name);
+        this.codec = Objects.requireNonNull(codec);
+        this.blockSize = blockSize;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment((int) blocksPerSegment);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Objects.requireNonNull(key);
+        return this.codec.decode(segmentFor(key).get(key, true));
+    }
+
+    @Override
+    public Object get(Object key, Function<Object, Object> loader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        Object value = get(key);
+        if (value != null) {
+            return value;
+        }
+
+        Lock lock = this.loadLocks.get(key);
+        lock.lock();
+        try {
+            // Double check, the value may be loaded by other thread.
+            value = this.codec.decode(segmentFor(key).get(key, false));
+            if (value != null) {
+                return value;
+            }
+            long start = System.nanoTime();
+            try {
+                value = loader.apply(key);
+            } catch (RuntimeException | Error e) {
+                this.loadFailureCount.increment();
+                throw e;
+            } finally {
+                this.totalLoadTime.add(System.nanoTime() - start);
+            }
+            if (value == null) {
+                this.loadFailureCount.increment();
+                return null;
+            }
+            this.loadSuccessCount.increment();
+            put(key, value);
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> getAsync(Object key, Function<Object, CompletableFuture<Object>> loader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        // Only the first lookup is recorded, the second one is the double check before loading.
+        boolean[] looked = new boolean[1];
+        Function<Object, Object> lookup = k -> {
+            boolean recordStats = !looked[0];
+            looked[0] = true;
+            return this.codec.decode(segmentFor(k).get(k, recordStats));
+        };
+        return this.singleFlightLoader.load(key, lookup, k -> {
+            long start = System.nanoTime();
+            CompletableFuture<Object> loading = loader.apply(k);
+            return loading.whenComplete((result, error) -> {
+                this.totalLoadTime.add(System.nanoTime() - start);
+                if (error == null && result != null) {
+                    this.loadSuccessCount.increment();
+                } else {
+                    this.loadFailureCount.increment();
+                }
+            });
+        }, this::put);
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Iterable<?> keys) {
+        Objects.requireNonNull(keys);
+        Map<Object, Object> result = new HashMap<>();
+        for (Object key : keys) {
+            Object value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Iterable<?> keys, Function<Set<Object>, Map<Object, Object>> loader) {
+        Objects.requireNonNull(loader);
+        Map<Object, Object> result = getAll(keys);
+        Set<Object> missingKeys = new HashSet<>();
+        for (Object key : keys) {
+            if (!result.containsKey(key)) {
+                missingKeys.add(key);
+            }
+        }
+        if (missingKeys.isEmpty()) {
+            return result;
+        }
+
+        Map<Object, Object> loaded = loader.apply(missingKeys);
+        if (loaded != null) {
+            loaded.forEach((key, value) -> {
+                if (value != null) {
+                    put(key, value);
+                    if (missingKeys.contains(key)) {
+                        result.put(key, value);
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        segmentFor(key).put(key, this.codec.encode(value), false);
+    }
+
+    @Override
+    public void putAll(Map<?, ?> map) {
+        Objects.requireNonNull(map);
+        map.forEach(this::put);
+    }
+
+    @Override
+    public Object putIfPresent(Object key, Object value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        byte[] existing = segmentFor(key).put(key, this.codec.encode(value), true);
+        return this.codec.decode(existing);
+    }
+
+    @Override
+    public void evict(Object key) {
+        Objects.requireNonNull(key);
+        segmentFor(key).remove(key);
+    }
+
+    @Override
+    public void evictAll(Iterable<?> keys) {
+        Objects.requireNonNull(keys);
+        keys.forEach(this::evict);
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : this.segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(this.hitCount.sum(), this.missCount.sum(), this.loadSuccessCount.sum(),
+            this.loadFailureCount.sum(), this.totalLoadTime.sum(),
+            Collections.singletonMap(CacheStats.EvictionCause.SIZE, this.evictionCount.sum()), size());
+    }
+
+    /**
+     * Returns the count of entries.
+     *
+     * @return the count of entries
+     */
+    public long size() {
+        long size = 0;
+        for (Segment segment : this.segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the bytes occupied by the entries, including the unused tail of the last block.
+     *
+     * @return the occupied bytes
+     */
+    public long usedBytes() {
+        long usedBlocks = 0;
+        for (Segment segment : this.segments) {
+            usedBlocks += segment.usedBlocks();
+        }
+        return usedBlocks * this.blockSize;
+    }
+
+    /**
+     * Returns the byte budget of cache.
+     *
+     * @return the capacity in bytes
+     */
+    public long capacity() {
+        return (long) this.segments[0].totalBlocks * this.blockSize * this.segments.length;
+    }
+
+    private Segment segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return this.segments[h & (this.segments.length - 1)];
+    }
+
+    /**
+     * The location of value in segment.
+     */
+    private static final class Entry {
+        private final int[] blocks;
+        private final int length;
+
+        private Entry(int[] blocks, int length) {
+            this.blocks = blocks;
+            this.length = length;
+        }
+    }
+
+    private final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ByteBuffer buffer;
+        private final int totalBlocks;
+        // The stack of free block indexes.
+        private final int[] freeBlocks;
+        private int freeCount;
+        // The index in access order, the eldest entry is the least recently used.
+        private final LinkedHashMap<Object, Entry> index = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Segment(int totalBlocks) {
+            this.totalBlocks = totalBlocks;
+            this.buffer = ByteBuffer.allocateDirect(totalBlocks * blockSize);
+            this.freeBlocks = new int[totalBlocks];
+            resetFreeBlocks();
+        }
+
+        private byte[] get(Object key, boolean recordStats) {
+            lock.lock();
+            try {
+                Entry entry = index.get(key);
+                if (entry == null) {
+                    if (recordStats) {
+                        missCount.increment();
+                    }
+                    return null;
+                }
+                if (recordStats) {
+                    hitCount.increment();
+                }
+                return read(entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Puts the bytes, returns the existing bytes if {@code onlyIfAbsent} is true and the key exists.
+         */
+        private byte[] put(Object key, byte[] bytes, boolean onlyIfAbsent) {
+            int blocksNeeded = (bytes.length + blockSize - 1) / blockSize;
+            lock.lock();
+            try {
+                Entry existing = index.get(key);
+                if (existing != null) {
+                    if (onlyIfAbsent) {
+                        return read(existing);
+                    }
+                    release(index.remove(key));
+                }
+                // The value which is larger than the segment is not cached.
+                if (blocksNeeded > totalBlocks) {
+                    return null;
+                }
+
+                Iterator<Entry> eldest = index.values().iterator();
+                while (freeCount < blocksNeeded && eldest.hasNext()) {
+                    Entry evicted = eldest.next();
+                    eldest.remove();
+                    release(evicted);
+                    evictionCount.increment();
+                }
+
+                int[] blocks = new int[blocksNeeded];
+                for (int i = 0; i < blocksNeeded; i++) {
+                    int block = freeBlocks[--freeCount];
+                    blocks[i] = block;
+                    int offset = i * blockSize;
+                    buffer.position(block * blockSize);
+                    buffer.put(bytes, offset, Math.min(blockSize, bytes.length - offset));
+                }
+                index.put(key, new Entry(blocks, bytes.length));
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void remove(Object key) {
+            lock.lock();
+            try {
+                Entry entry = index.remove(key);
+                if (entry != null) {
+                    release(entry);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void clear() {
+            lock.lock();
+            try {
+                index.clear();
+                resetFreeBlocks();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return index.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private int usedBlocks() {
+            lock.lock();
+            try {
+                return totalBlocks - freeCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Must be called with lock held.
+        private byte[] read(Entry entry) {
+            byte[] bytes = new byte[entry.length];
+            for (int i = 0; i < entry.blocks.length; i++) {
+                int offset = i * blockSize;
+                buffer.position(entry.blocks[i] * blockSize);
+                buffer.get(bytes, offset, Math.min(blockSize, entry.length - offset));
+            }
+            return bytes;
+        }
+
+        // Must be called with lock held.
+        private void release(Entry entry) {
+            for (int block : entry.blocks) {
+                freeBlocks[freeCount++] = block;
+            }
+        }
+
+        // Must be called with lock held.
+        private void resetFreeBlocks() {
+            for (int i = 0; i < totalBlocks; i++) {
+                freeBlocks[i] = totalBlocks - 1 - i;
+            }
+            freeCount = totalBlocks;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.primitive;
+
+import com.google.common.util.concurrent.Striped;
+import me.mingshan.util.cache.LongKeyCache;
+import me.mingshan.util.cache.stats.CacheStats;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongFunction;
+
+/**
+ * The {@link LongKeyCache} implementation with open addressing hash tables, the keys are
+ * stored in {@code long[]} and the values in {@code Object[]}, so neither the key nor
+ * a map entry is allocated per entry or per lookup.
+ * <p>
+ * The cache is split into segments, each segment has its own lock and a fixed-size table
+ * with linear probing, the table is at most half full so the probe sequences stay short,
+ * and the entries are removed by backward shifting instead of leaving tombstones.
+ * <p>
+ * The size of cache is bounded, if a segment is full, an entry is evicted by the CLOCK
+ * algorithm, which approximates LRU: every read marks the entry as referenced, the clock
+ * hand clears the mark of referenced entries and evicts the first unreferenced one. If
+ * the time to live is set, the expired entries are dropped on read and evicted first.
+ *
+ * @author mingshan
+ */
+public class LongHashCache implements LongKeyCache {
+    /** The default count of segments */
+    public static final int DEFAULT_SEGMENT_COUNT = 16;
+
+    // The maximum capacity of segment table.
+    private static final int MAXIMUM_TABLE_SIZE = 1 << 30;
+
+    private final String name;
+    private final long ttlNanos;
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final Striped<Lock> loadLocks = Striped.lazyWeakLock(64);
+    private final LongAdder loadSuccessCount = new LongAdder();
+    private final LongAdder loadFailureCount = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    /**
+     * Creates the cache without time to live.
+     *
+     * @param name the name of cache
+     * @param maximumSize the maximum count of entries
+     */
+    public LongHashCache(String name, long maximumSize) {
+        this(name, maximumSize, null, DEFAULT_SEGMENT_COUNT);
+    }
+
+    /**
+     * Creates the cache with the default segment count.
+     *
+     * @param name the name of cache
+     * @param maximumSize the maximum count of entries
+     * @param ttl the time to live after the entry is written, {@code null} means never expire
+     */
+    public LongHashCache(String name, long maximumSize, Duration ttl) {
+        this(name, maximumSize, ttl, DEFAULT_SEGMENT_COUNT);
+    }
+
+    /**
+     * Creates the cache.
+     *
+     * @param name the name of cache
+     * @param maximumSize the maximum count of entries
+     * @param ttl the time to live after the entry is written, {@code null} means never expire
+     * @param segmentCount the count of segments, must be power of two
+     */
+    public LongHashCache(String name, long maximumSize, Duration ttl, int segmentCount) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        if (segmentCount <= 0 || Integer.bitCount(segmentCount) != 1) {
+            throw new IllegalArgumentException("segmentCount must be power of two");
+        }
+        if (ttl != null && (ttl.isNegative() || ttl.isZero())) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        long sizePerSegment = (maximumSize + segmentCount - 1) / segmentCount;
+        if (sizePerSegment > MAXIMUM_TABLE_SIZE / 2) {
+            throw new IllegalArgumentException("maximumSize is too large, increase segmentCount");
+        }
+
+        this.name = Objects.requireNonNull(name);
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment((int) sizePerSegment, this.ttlNanos > 0);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public Object get(long key) {
+        int hash = hash(key);
+        return segmentFor(hash).get(key, hash, now(), true);
+    }
+
+    @Override
+    public Object get(long key, LongFunction<Object> loader) {
+        Objects.requireNonNull(loader);
+        int hash = hash(key);
+        Segment segment = segmentFor(hash);
+        Object value = segment.get(key, hash, now(), true);
+        if (value != null) {
+            return value;
+        }
+
+        Lock lock = this.loadLocks.getAt(hash & (this.loadLocks.size() - 1));
+        lock.lock();
+        try {
+            // Double check, the value may be loaded by other thread.
+            value = segment.get(key, hash, now(), false);
+            if (value != null) {
+                return value;
+            }
+            long start = System.nanoTime();
+            try {
+                value = loader.apply(key);
+            } catch (RuntimeException | Error e) {
+                this.loadFailureCount.increment();
+                throw e;
+            } finally {
+                this.totalLoadTime.add(System.nanoTime() - start);
+            }
+            if (value == null) {
+                this.loadFailureCount.increment();
+                return null;
+            }
+            this.loadSuccessCount.increment();
+            segment.put(key, hash, value, false, now());
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(long key, Object value) {
+        Objects.requireNonNull(value);
+        int hash = hash(key);
+        segmentFor(hash).put(key, hash, value, false, now());
+    }
+
+    @Override
+    public Object putIfPresent(long key, Object value) {
+        Objects.requireNonNull(value);
+        int hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, true, now());
+    }
+
+    @Override
+    public void evict(long key) {
+        int hash = hash(key);
+        segmentFor(hash).remove(key, hash);
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : this.segments) {
+            segment.clear();
+        }
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : this.segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    @Override
+    public CacheStats stats() {
+        long hitCount = 0;
+        long missCount = 0;
+        long sizeEvictionCount = 0;
+        long expiredCount = 0;
+        long size = 0;
+        for (Segment segment : this.segments) {
+            segment.lock.lock();
+            try {
+                hitCount += segment.hitCount;
+                missCount += segment.missCount;
+                sizeEvictionCount += segment.sizeEvictionCount;
+                expiredCount += segment.expiredCount;
+                size += segment.size;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        Map<CacheStats.EvictionCause, Long> evictionCounts = new EnumMap<>(CacheStats.EvictionCause.class);
+        evictionCounts.put(CacheStats.EvictionCause.SIZE, sizeEvictionCount);
+        evictionCounts.put(CacheStats.EvictionCause.EXPIRED, expiredCount);
+        return new CacheStats(hitCount, missCount, this.loadSuccessCount.sum(), this.loadFailureCount.sum(),
+            this.totalLoadTime.sum(), evictionCounts, size);
+    }
+
+    private long now() {
+        return this.ttlNanos > 0 ? System.nanoTime() : 0;
+    }
+
+    private Segment segmentFor(int hash) {
+        // The high bits select the segment, the low bits select the slot in segment.
+        return this.segments.length == 1 ? this.segments[0] : this.segments[hash >>> this.segmentShift];
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int maximumSize;
+        private final int mask;
+        private final long[] keys;
+        private final Object[] values;
+        private final boolean[] referenced;
+        private final long[] expireAt;
+        private int size;
+        private int hand;
+        private long hitCount;
+        private long missCount;
+        private long sizeEvictionCount;
+        private long expiredCount;
+
+        Segment(int maximumSize, boolean expirable) {
+            int tableSize = Integer.highestOneBit(Math.max(2, maximumSize * 2 - 1)) << 1;
+            this.maximumSize = maximumSize;
+            this.mask = tableSize - 1;
+            this.keys = new long[tableSize];
+            this.values = new Object[tableSize];
+            this.referenced = new boolean[tableSize];
+            this.expireAt = expirable ? new long[tableSize] : null;
+        }
+
+        Object get(long key, int hash, long now, boolean recordStats) {
+            this.lock.lock();
+            try {
+                int index = find(key, hash);
+                if (index >= 0 && isExpired(index, now)) {
+                    removeAt(index);
+                    this.expiredCount++;
+                    index = -1;
+                }
+                if (index < 0) {
+                    if (recordStats) {
+                        this.missCount++;
+                    }
+                    return null;
+                }
+                this.referenced[index] = true;
+                if (recordStats) {
+                    this.hitCount++;
+                }
+                return this.values[index];
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        Object put(long key, int hash, Object value, boolean onlyIfAbsent, long now) {
+            this.lock.lock();
+            try {
+                int index = find(key, hash);
+                if (index >= 0) {
+                    Object previous = isExpired(index, now) ? null : this.values[index];
+                    if (onlyIfAbsent && previous != null) {
+                        this.referenced[index] = true;
+                        return previous;
+                    }
+                    this.values[index] = value;
+                    this.referenced[index] = true;
+                    setExpireAt(index, now);
+                    return previous;
+                }
+
+                if (this.size >= this.maximumSize) {
+                    evictOne(now);
+                    // The entries may be shifted by the eviction, finds the free slot again.
+                    index = find(key, hash);
+                }
+                index = -index - 1;
+                this.keys[index] = key;
+                this.values[index] = value;
+                this.referenced[index] = false;
+                setExpireAt(index, now);
+                this.size++;
+                return null;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        void remove(long key, int hash) {
+            this.lock.lock();
+            try {
+                int index = find(key, hash);
+                if (index >= 0) {
+                    removeAt(index);
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        void clear() {
+            this.lock.lock();
+            try {
+                Arrays.fill(this.values, null);
+                Arrays.fill(this.referenced, false);
+                this.size = 0;
+                this.hand = 0;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        int size() {
+            this.lock.lock();
+            try {
+                return this.size;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /**
+         * Returns the index of key, or {@code -(insertion index) - 1} if the key is absent.
+         */
+        private int find(long key, int hash) {
+            int index = hash & this.mask;
+            while (this.values[index] != null) {
+                if (this.keys[index] == key) {
+                    return index;
+                }
+                index = (index + 1) & this.mask;
+            }
+            return -index - 1;
+        }
+
+        private boolean isExpired(int index, long now) {
+            return this.expireAt != null && this.expireAt[index] - now <= 0;
+        }
+
+        private void setExpireAt(int index, long now) {
+            if (this.expireAt != null) {
+                this.expireAt[index] = now + ttlNanos;
+            }
+        }
+
+        private void evictOne(long now) {
+            while (true) {
+                int index = this.hand;
+                this.hand = (this.hand + 1) & this.mask;
+                if (this.values[index] == null) {
+                    continue;
+                }
+                if (isExpired(index, now)) {
+                    removeAt(index);
+                    this.expiredCount++;
+                    return;
+                }
+                if (this.referenced[index]) {
+                    // Gives the entry a second chance.
+                    this.referenced[index] = false;
+                    continue;
+                }
+                removeAt(index);
+                this.sizeEvictionCount++;
+                return;
+            }
+        }
+
+        private void removeAt(int index) {
+            // Shifts the following entries of the probe sequence backward to fill the hole.
+            int hole = index;
+            int next = index;
+            while (true) {
+                next = (next + 1) & this.mask;
+                if (this.values[next] == null) {
+                    break;
+                }
+                int ideal = hash(this.keys[next]) & this.mask;
+                boolean stay = hole <= next ? (hole < ideal && ideal <= next) : (hole < ideal || ideal <= next);
+                if (!stay) {
+                    this.keys[hole] = this.keys[next];
+                    this.values[hole] = this.values[next];
+                    this.referenced[hole] = this.referenced[next];
+                    if (this.expireAt != null) {
+                        this.expireAt[hole] = this.expireAt[next];
+                    }
+                    hole = next;
+                }
+            }
+            this.values[hole] = null;
+            this.referenced[hole] = false;
+            this.size--;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.redis;
+
+import me.mingshan.util.cache.AsyncCache;
+import me.mingshan.util.cache.support.ValueCodec;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * The {@link AsyncCache} implementation with the reactive Redis connection, for example, the
+ * connection of Lettuce, the commands are sent by non-blocking I/O and no thread is parked
+ * while waiting for the reply. It requires {@code reactor-core} on the classpath.
+ * <p>
+ * The keys and values are same as {@link RedisCache}, so the both caches can share the data.
+ *
+ * @author mingshan
+ */
+public class ReactiveRedisCache implements AsyncCache {
+    private final String name;
+    private final ReactiveRedisConnectionFactory connectionFactory;
+    private final Duration ttl;
+    private final ValueCodec codec;
+
+    // The loadings which are in progress, keyed by cache key.
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loadingFutures = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the cache whose values never expire.
+     *
+     * @param name the name of cache
+     * @param connectionFactory the reactive connection factory of Redis
+     */
+    public ReactiveRedisCache(String name, ReactiveRedisConnectionFactory connectionFactory) {
+        this(name, connectionFactory, null, new ValueCodec());
+    }
+
+    /**
+     * Creates the cache.
+     *
+     * @param name the name of cache
+     * @param connectionFactory the reactive connection factory of Redis
+     * @param ttl the time to live of values, {@code null} means never expire
+     * @param codec the codec of values
+     */
+    public ReactiveRedisCache(String name, ReactiveRedisConnectionFactory connectionFactory, Duration ttl,
+                              ValueCodec codec) {
+        this.name = Objects.requireNonNull(name);
+        this.connectionFactory = Objects.requireNonNull(connectionFactory);
+        this.ttl = ttl;
+        this.codec = Objects.requireNonNull(codec);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public CompletableFuture<Object> get(Object key) {
+        Objects.requireNonNull(key);
+        return execute(connection -> connection.stringCommands().get(rawKey(key)))
+            .map(this::decode)
+            .toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Object> get(Object key, Function<Object, CompletableFuture<Object>> loader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        return get(key).thenCompose(value -> value != null ? CompletableFuture.completedFuture(value) : load(key, loader));
+    }
+
+    @Override
+    public CompletableFuture<Map<Object, Object>> getAll(Iterable<?> keys) {
+        Objects.requireNonNull(keys);
+        List<Object> keyList = new ArrayList<>(toSet(keys));
+        if (keyList.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        List<ByteBuffer> rawKeys = new ArrayList<>(keyList.size());
+        for (Object key : keyList) {
+            rawKeys.add(rawKey(key));
+        }
+        return execute(connection -> connection.stringCommands().mGet(rawKeys))
+            .map(rawValues -> {
+                Map<Object, Object> result = new HashMap<>();
+                for (int i = 0; i < keyList.size() && i < rawValues.size(); i++) {
+                    Object value = decode(rawValues.get(i));
+                    if (value != null) {
+                        result.put(keyList.get(i), value);
+                    }
+                }
+                return result;
+            })
+            .defaultIfEmpty(Collections.emptyMap())
+            .toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Map<Object, Object>> getAll(Iterable<?> keys,
+                                                         Function<Set<Object>, CompletableFuture<Map<Object, Object>>> loader) {
+        Objects.requireNonNull(keys);
+        Objects.requireNonNull(loader);
+        Set<Object> keySet = toSet(keys);
+        return getAll(keySet).thenCompose(present -> {
+            Set<Object> missingKeys = new LinkedHashSet<>(keySet);
+            missingKeys.removeAll(present.keySet());
+            if (missingKeys.isEmpty()) {
+                return CompletableFuture.completedFuture(present);
+            }
+            return loader.apply(missingKeys).thenCompose(loaded -> putAll(loaded).thenApply(ignored -> {
+                Map<Object, Object> result = new HashMap<>(present);
+                result.putAll(loaded);
+                return result;
+            }));
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> put(Object key, Object value) {
+        return put(key, value, this.ttl);
+    }
+
+    @Override
+    public CompletableFuture<Void> put(Object key, Object value, Duration ttl) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        ByteBuffer rawKey = rawKey(key);
+        ByteBuffer rawValue = ByteBuffer.wrap(this.codec.encode(value));
+        return execute(connection -> connection.stringCommands()
+            .set(rawKey, rawValue, expiration(ttl), RedisStringCommands.SetOption.upsert()))
+            .then()
+            .toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> evict(Object key) {
+        Objects.requireNonNull(key);
+        return execute(connection -> connection.keyCommands().del(rawKey(key)))
+            .then()
+            .toFuture();
+    }
+
+    /**
+     * Returns the key in Redis of the specified key.
+     *
+     * @param key the key
+     * @return the key in Redis
+     */
+    public String redisKey(Object key) {
+        return this.name + RedisCache.SEPARATOR + key;
+    }
+
+    private CompletableFuture<Void> putAll(Map<Object, Object> map) {
+        if (map == null || map.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Expiration expiration = expiration(this.ttl);
+        // The commands are sent without waiting for the previous replies.
+        return execute(connection -> Flux.fromIterable(map.entrySet())
+            .flatMap(entry -> connection.stringCommands().set(rawKey(entry.getKey()),
+                ByteBuffer.wrap(this.codec.encode(Objects.requireNonNull(entry.getValue()))),
+                expiration, RedisStringCommands.SetOption.upsert()))
+            .then())
+            .toFuture();
+    }
+
+    private CompletableFuture<Object> load(Object key, Function<Object, CompletableFuture<Object>> loader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existingFuture = this.loadingFutures.putIfAbsent(key, future);
+        if (existingFuture != null) {
+            return existingFuture.thenApply(Function.identity());
+        }
+
+        // The previous loading may be completed between the miss and registration, so looks up again.
+        get(key).thenCompose(value -> value != null
+                ? CompletableFuture.completedFuture(value)
+                : loadAndPut(key, loader))
+            .whenComplete((value, error) -> {
+                this.loadingFutures.remove(key, future);
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(value);
+                }
+            });
+        // Every caller gets its own dependent future, so completing it does not affect the others.
+        return future.thenApply(Function.identity());
+    }
+
+    private CompletableFuture<Object> loadAndPut(Object key, Function<Object, CompletableFuture<Object>> loader) {
+        // Stores the value before removing the future, so the value is always visible.
+        return Objects.requireNonNull(loader.apply(key)).thenCompose(value -> value == null
+            ? CompletableFuture.completedFuture(null)
+            : put(key, value).thenApply(ignored -> value));
+    }
+
+    private <T> Mono<T> execute(Function<ReactiveRedisConnection, Mono<T>> action) {
+        return Mono.usingWhen(Mono.fromSupplier(this.connectionFactory::getReactiveConnection),
+            action, ReactiveRedisConnection::closeLater);
+    }
+
+    private Object decode(ByteBuffer buffer) {
+        if (buffer == null || !buffer.hasRemaining()) {
+            return null;
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return this.codec.decode(bytes);
+    }
+
+    private ByteBuffer rawKey(Object key) {
+        return ByteBuffer.wrap(redisKey(key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Set<Object> toSet(Iterable<?> keys) {
+        Set<Object> set = new LinkedHashSet<>();
+        for (Object key : keys) {
+            set.add(Objects.requireNonNull(key));
+        }
+        return set;
+    }
+
+    private static Expiration expiration(Duration ttl) {
+        return ttl == null ? Expiration.persistent() : Expiration.from(ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,336 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.redis;
+
+import com.google.common.util.concurrent.Striped;
+import me.mingshan.util.cache.Cache;
+import me.mingshan.util.cache.support.SingleFlightLoader;
+import me.mingshan.util.cache.support.ValueCodec;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Function;
+
+/**
+ * The cache implementation with Redis, the values are encoded by {@link ValueCodec}.
+ * <p>
+ * The key in Redis is composed of the name of cache and the key, separated by {@code ::},
+ * which is the same as Spring cache.
+ * <p>
+ * The commands are blocking, so {@link #getAsync(Object, Function)} looks up Redis on the
+ * given executor rather than the caller's thread. Use {@link ReactiveRedisCache} if the
+ * lookups should not occupy a thread at all.
+ *
+ * @author mingshan
+ */
+public class RedisCache implements Cache {
+    /** The separator of cache name and key */
+    public static final String SEPARATOR = "::";
+
+    // The count of keys scanned per batch when clearing cache.
+    private static final int SCAN_BATCH_SIZE = 1_000;
+
+    private final String name;
+    private final RedisConnectionFactory connectionFactory;
+    private final Duration ttl;
+    private final ValueCodec codec;
+    private final Executor executor;
+    private final Striped<Lock> loadLocks = Striped.lazyWeakLock(64);
+    private final SingleFlightLoader singleFlightLoader = new SingleFlightLoader();
+
+    /**
+     * Creates the cache whose values never expire.
+     *
+     * @param name the name of cache
+     * @param connectionFactory the connection factory of Redis
+     */
+    public RedisCache(String name, RedisConnectionFactory connectionFactory) {
+        this(name, connectionFactory, null, new ValueCodec());
+    }
+
+    /**
+     * Creates the cache.
+     *
+     * @param name the name of cache
+     * @param connectionFactory the connection factory of Redis
+     * @param ttl the time to live of values, {@code null} means never expire
+     * @param codec the codec of values
+     */
+    public RedisCache(String name, RedisConnectionFactory connectionFactory, Duration ttl, ValueCodec codec) {
+        this(name, connectionFactory, ttl, codec, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates the cache.
+     *
+     * @param name the name of cache
+     * @param connectionFactory the connection factory of Redis
+     * @param ttl the time to live of values, {@code null} means never expire
+     * @param codec the codec of values
+     * @param executor the executor to run the blocking lookups of {@link #getAsync(Object, Function)}
+     */
+    public RedisCache(String name, RedisConnectionFactory connectionFactory, Duration ttl, ValueCodec codec,
+                      Executor executor) {
+        this.name = Objects.requireNonNull(name);
+        this.connectionFactory = Objects.requireNonNull(connectionFactory);
+        this.ttl = ttl;
+        this.codec = Objects.requireNonNull(codec);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public Object get(Object key) {
+        Objects.requireNonNull(key);
+        byte[] bytes = execute(connection -> connection.get(rawKey(key)));
+        return this.codec.decode(bytes);
+    }
+
+    @Override
+    public Object get(Object key, Function<Object, Object> loader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        Object value = get(key);
+        if (value != null) {
+            return value;
+        }
+
+        // Only one loader runs per key in this process.
+        Lock lock = this.loadLocks.get(key);
+        lock.lock();
+        try {
+            value = get(key);
+            if (value == null) {
+                value = loader.apply(key);
+                if (value != null) {
+                    put(key, value);
+                }
+            }
+            return value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> getAsync(Object key, Function<Object, CompletableFuture<Object>> loader) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(loader);
+        // The lookups are blocking GET commands, so they run on the executor.
+        return CompletableFuture.supplyAsync(() -> this.singleFlightLoader.load(key, this::get, loader, this::put),
+            this.executor).thenCompose(Function.identity());
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Iterable<?> keys) {
+        Objects.requireNonNull(keys);
+        List<Object> keyList = new ArrayList<>();
+        keys.forEach(keyList::add);
+        if (keyList.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        byte[][] rawKeys = rawKeys(keyList);
+        List<byte[]> values = execute(connection -> connection.mGet(rawKeys));
+        Map<Object, Object> result = new HashMap<>();
+        for (int i = 0; i < keyList.size(); i++) {
+            Object value = values == null ? null : this.codec.decode(values.get(i));
+            if (value != null) {
+                result.put(keyList.get(i), value);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Iterable<?> keys, Function<Set<Object>, Map<Object, Object>> loader) {
+        Objects.requireNonNull(loader);
+        Map<Object, Object> result = getAll(keys);
+        Set<Object> missingKeys = new HashSet<>();
+        for (Object key : keys) {
+            if (!result.containsKey(key)) {
+                missingKeys.add(key);
+            }
+        }
+        if (missingKeys.isEmpty()) {
+            return result;
+        }
+
+        Map<Object, Object> loaded = loader.apply(missingKeys);
+        if (loaded != null && !loaded.isEmpty()) {
+            putAll(loaded);
+            loaded.forEach((key, value) -> {
+                if (missingKeys.contains(key) && value != null) {
+                    result.put(key, value);
+                }
+            });
+        }
+        return result;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        byte[] rawKey = rawKey(key);
+        byte[] rawValue = this.codec.encode(value);
+        execute(connection -> connection.set(rawKey, rawValue, expiration(), RedisStringCommands.SetOption.upsert()));
+    }
+
+    @Override
+    public void put(Object key, Object value, Duration ttl) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        Objects.requireNonNull(ttl);
+        byte[] rawKey = rawKey(key);
+        byte[] rawValue = this.codec.encode(value);
+        Expiration expiration = Expiration.from(ttl.toMillis(), TimeUnit.MILLISECONDS);
+        execute(connection -> connection.set(rawKey, rawValue, expiration, RedisStringCommands.SetOption.upsert()));
+    }
+
+    @Override
+    public void putAll(Map<?, ?> map) {
+        Objects.requireNonNull(map);
+        if (map.isEmpty()) {
+            return;
+        }
+
+        Map<byte[], byte[]> rawEntries = new HashMap<>();
+        map.forEach((key, value) -> rawEntries.put(rawKey(Objects.requireNonNull(key)),
+            this.codec.encode(Objects.requireNonNull(value))));
+        execute(connection -> {
+            connection.openPipeline();
+            try {
+                rawEntries.forEach((rawKey, rawValue) ->
+                    connection.set(rawKey, rawValue, expiration(), RedisStringCommands.SetOption.upsert()));
+            } finally {
+                connection.closePipeline();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Object putIfPresent(Object key, Object value) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        byte[] rawKey = rawKey(key);
+        byte[] rawValue = this.codec.encode(value);
+        Boolean stored = execute(connection ->
+            connection.set(rawKey, rawValue, expiration(), RedisStringCommands.SetOption.ifAbsent()));
+        if (Boolean.TRUE.equals(stored)) {
+            return null;
+        }
+        return get(key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        Objects.requireNonNull(key);
+        byte[] rawKey = rawKey(key);
+        execute(connection -> connection.del(rawKey));
+    }
+
+    @Override
+    public void evictAll(Iterable<?> keys) {
+        Objects.requireNonNull(keys);
+        List<Object> keyList = new ArrayList<>();
+        keys.forEach(keyList::add);
+        if (keyList.isEmpty()) {
+            return;
+        }
+        byte[][] rawKeys = rawKeys(keyList);
+        execute(connection -> connection.del(rawKeys));
+    }
+
+    @Override
+    public void clear() {
+        ScanOptions options = ScanOptions.scanOptions().match(this.name + SEPARATOR + "*").count(SCAN_BATCH_SIZE).build();
+        execute(connection -> {
+            List<byte[]> batch = new ArrayList<>(SCAN_BATCH_SIZE);
+            try (Cursor<byte[]> cursor = connection.scan(options)) {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() >= SCAN_BATCH_SIZE) {
+                        connection.del(batch.toArray(new byte[0][]));
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                connection.del(batch.toArray(new byte[0][]));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Returns the key in Redis of the specified cache key.
+     *
+     * @param key the cache key
+     * @return the key in Redis
+     */
+    public String redisKey(Object key) {
+        return this.name + SEPARATOR + key;
+    }
+
+    private byte[] rawKey(Object key) {
+        return redisKey(key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[][] rawKeys(List<Object> keys) {
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = rawKey(Objects.requireNonNull(keys.get(i)));
+        }
+        return rawKeys;
+    }
+
+    private Expiration expiration() {
+        return this.ttl == null
+            ? Expiration.persistent()
+            : Expiration.from(this.ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private <T> T execute(Function<RedisConnection, T> action) {
+        RedisConnection connection = this.connectionFactory.getConnection();
+        try {
+            return action.apply(connection);
+        } finally {
+            connection.close();
+        }
+    }
+}
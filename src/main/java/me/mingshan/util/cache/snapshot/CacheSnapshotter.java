@@ -0,0 +1,300 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.snapshot;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import me.mingshan.util.KryoUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Saves the hottest entries of cache to the local snapshot files and restores them on startup,
+ * so that the new started node does not begin with an empty cache.
+ * <p>
+ * The entries are split into several shard files named {@code <cache name>.<shard>.snapshot},
+ * every shard is streamed with Kryo and the shards are saved and restored in parallel. The
+ * expire time of entry is saved as the wall clock time, so the restored entry never lives
+ * longer than its original expire time, and the entries which expired during the downtime
+ * are dropped. A broken shard, for example the class of value has been changed, is skipped
+ * with a warning.
+ * <p>
+ * The snapshot can be saved on demand with {@link #save()}, periodically with {@link #start(Duration)}
+ * or at shutdown with {@link #registerShutdownHook()}.
+ *
+ * @author mingshan
+ */
+@Slf4j
+public class CacheSnapshotter {
+    // The default maximum count of entries in snapshot.
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    // The default count of shard files.
+    private static final int DEFAULT_SHARDS = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+    private static final String SUFFIX = ".snapshot";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Snapshotable cache;
+    private final Path directory;
+    private final int maxEntries;
+    private final int shards;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates the snapshotter with the default maximum count of entries and shards.
+     *
+     * @param cache the cache
+     * @param directory the directory of snapshot files
+     */
+    public CacheSnapshotter(Snapshotable cache, Path directory) {
+        this(cache, directory, DEFAULT_MAX_ENTRIES, DEFAULT_SHARDS);
+    }
+
+    /**
+     * Creates the snapshotter.
+     *
+     * @param cache the cache
+     * @param directory the directory of snapshot files
+     * @param maxEntries the maximum count of the hottest entries to save
+     * @param shards the count of shard files
+     */
+    public CacheSnapshotter(Snapshotable cache, Path directory, int maxEntries, int shards) {
+        if (maxEntries <= 0 || shards <= 0) {
+            throw new IllegalArgumentException("The maximum entries and shards must be positive");
+        }
+        this.cache = Objects.requireNonNull(cache);
+        this.directory = Objects.requireNonNull(directory);
+        this.maxEntries = maxEntries;
+        this.shards = shards;
+    }
+
+    /**
+     * Saves the hottest entries of cache to the snapshot files, replaces the previous snapshot.
+     *
+     * @return the count of saved entries
+     */
+    public int save() {
+        List<SnapshotEntry> entries = cache.hottest(maxEntries);
+        List<List<SnapshotEntry>> shardEntries = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            shardEntries.add(new ArrayList<>(entries.size() / shards + 1));
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            shardEntries.get(i % shards).add(entries.get(i));
+        }
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        runInParallel(shards, shard -> writeShard(shard, shardEntries.get(shard)));
+        deleteStaleShards();
+        log.info("Saved {} entries of cache [{}] to snapshot", entries.size(), cache.getName());
+        return entries.size();
+    }
+
+    /**
+     * Restores the entries from the snapshot files in parallel, does nothing if there is no snapshot.
+     *
+     * @return the count of restored entries
+     */
+    public int restore() {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, cache.getName() + ".*" + SUFFIX)) {
+                // The glob also matches the shards of the cache whose name starts with this name and a dot.
+                for (Path file : stream) {
+                    if (shardOf(file) >= 0) {
+                        files.add(file);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (files.isEmpty()) {
+            return 0;
+        }
+
+        int[] restored = new int[files.size()];
+        runInParallel(files.size(), i -> restored[i] = readShard(files.get(i)));
+        int total = 0;
+        for (int count : restored) {
+            total += count;
+        }
+        log.info("Restored {} entries of cache [{}] from snapshot", total, cache.getName());
+        return total;
+    }
+
+    /**
+     * Starts saving the snapshot periodically.
+     *
+     * @param period the period of saving
+     */
+    public synchronized void start(Duration period) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("cache-snapshot-" + cache.getName() + "-%d").setDaemon(true).build());
+        long millis = period.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                save();
+            } catch (Exception e) {
+                log.warn("Failed to save the snapshot of cache [{}]", cache.getName(), e);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops saving the snapshot periodically.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Registers the shutdown hook which stops the periodic saving and saves the final snapshot.
+     */
+    public void registerShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stop();
+            save();
+        }, "cache-snapshot-" + cache.getName() + "-shutdown"));
+    }
+
+    private void writeShard(int shard, List<SnapshotEntry> entries) {
+        Path file = directory.resolve(cache.getName() + "." + shard + SUFFIX);
+        Path tempFile = directory.resolve(file.getFileName() + TEMP_SUFFIX);
+        try {
+            try (OutputStream stream = Files.newOutputStream(tempFile);
+                 Output output = new Output(stream, BUFFER_SIZE)) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeVarInt(entries.size(), true);
+                KryoUtil.withKryo(kryo -> {
+                    for (SnapshotEntry entry : entries) {
+                        kryo.writeClassAndObject(output, entry.getKey());
+                        kryo.writeClassAndObject(output, entry.getValue());
+                        output.writeLong(entry.getExpireAtMillis());
+                    }
+                    return null;
+                });
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteStaleShards() {
+        // The shards left by the previous snapshot with more shards.
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, cache.getName() + ".*" + SUFFIX)) {
+            for (Path file : stream) {
+                if (shardOf(file) >= shards) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the shard number of the snapshot file of this cache, or -1 if the file is not a shard of this cache.
+     */
+    private int shardOf(Path file) {
+        String prefix = cache.getName() + ".";
+        String fileName = file.getFileName().toString();
+        if (!fileName.startsWith(prefix) || !fileName.endsWith(SUFFIX)
+            || fileName.length() <= prefix.length() + SUFFIX.length()) {
+            return -1;
+        }
+        String shard = fileName.substring(prefix.length(), fileName.length() - SUFFIX.length());
+        if (shard.length() > 9 || !shard.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return -1;
+        }
+        return Integer.parseInt(shard);
+    }
+
+    private int readShard(Path file) {
+        AtomicInteger restored = new AtomicInteger();
+        try (InputStream stream = Files.newInputStream(file);
+             Input input = new Input(stream, BUFFER_SIZE)) {
+            int version = input.readInt();
+            if (version != FORMAT_VERSION) {
+                log.warn("Skipped the snapshot file [{}] with unknown version {}", file, version);
+                return 0;
+            }
+            int count = input.readVarInt(true);
+            KryoUtil.withKryo(kryo -> {
+                for (int i = 0; i < count; i++) {
+                    Object key = kryo.readClassAndObject(input);
+                    Object value = kryo.readClassAndObject(input);
+                    long expireAtMillis = input.readLong();
+                    if (cache.restore(new SnapshotEntry(key, value, expireAtMillis))) {
+                        restored.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            // The entries restored before the failure are kept.
+            log.warn("Failed to restore the snapshot file [{}]", file, e);
+        }
+        return restored.get();
+    }
+
+    private void runInParallel(int tasks, IntConsumer task) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(tasks, shards), new ThreadFactoryBuilder()
+            .setNameFormat("cache-snapshot-" + cache.getName() + "-io-%d").setDaemon(true).build());
+        try {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[tasks];
+            for (int i = 0; i < tasks; i++) {
+                int index = i;
+                futures[i] = CompletableFuture.runAsync(() -> task.accept(index), executor);
+            }
+            CompletableFuture.allOf(futures).join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
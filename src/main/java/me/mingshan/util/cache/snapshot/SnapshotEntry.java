@@ -0,0 +1,78 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.snapshot;
+
+/**
+ * The entry of cache snapshot, the expire time is the wall clock time so that the time
+ * the application is down is also counted when the entry is restored.
+ *
+ * @author mingshan
+ */
+public final class SnapshotEntry {
+    /**
+     * The expire time of entry which never expires.
+     */
+    public static final long NEVER_EXPIRE = Long.MAX_VALUE;
+
+    private final Object key;
+    private final Object value;
+    private final long expireAtMillis;
+
+    /**
+     * Creates the entry.
+     *
+     * @param key the key
+     * @param value the value
+     * @param expireAtMillis the epoch milliseconds at which the entry expires,
+     *                       or {@link #NEVER_EXPIRE}
+     */
+    public SnapshotEntry(Object key, Object value, long expireAtMillis) {
+        this.key = key;
+        this.value = value;
+        this.expireAtMillis = expireAtMillis;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public long getExpireAtMillis() {
+        return expireAtMillis;
+    }
+
+    /**
+     * Returns the remaining milliseconds to live at the specified time.
+     *
+     * @param nowMillis the current epoch milliseconds
+     * @return the remaining milliseconds, {@link Long#MAX_VALUE} if the entry never expires
+     */
+    public long remainingMillis(long nowMillis) {
+        if (expireAtMillis == NEVER_EXPIRE) {
+            return Long.MAX_VALUE;
+        }
+        return expireAtMillis - nowMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotEntry{" +
+            "key=" + key +
+            ", expireAtMillis=" + expireAtMillis +
+            '}';
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.snapshot;
+
+import java.util.List;
+
+/**
+ * The cache whose hottest entries can be saved to snapshot and restored on startup,
+ * see {@link CacheSnapshotter}.
+ *
+ * @author mingshan
+ */
+public interface Snapshotable {
+
+    /**
+     * Returns the name of cache.
+     *
+     * @return the name of cache
+     */
+    String getName();
+
+    /**
+     * Returns the hottest entries of cache with their expire time, the hottest first.
+     *
+     * @param limit the maximum count of entries
+     * @return the hottest entries
+     */
+    List<SnapshotEntry> hottest(int limit);
+
+    /**
+     * Restores the entry from snapshot. The entry must not live longer than its
+     * original expire time, and the value already in the cache is not replaced.
+     *
+     * @param entry the entry to restore
+     * @return {@code true} if the entry is restored
+     */
+    boolean restore(SnapshotEntry entry);
+}
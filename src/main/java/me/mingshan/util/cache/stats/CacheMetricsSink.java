@@ -0,0 +1,33 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.stats;
+
+/**
+ * The sink which receives the snapshots of cache statistics, e.g. exports them to
+ * the metrics system.
+ *
+ * @author mingshan
+ */
+@FunctionalInterface
+public interface CacheMetricsSink {
+
+    /**
+     * Receives the statistics of cache.
+     *
+     * @param cacheName the name of cache
+     * @param total the statistics since the cache was created
+     * @param period the statistics since the last report
+     */
+    void report(String cacheName, CacheStats total, CacheStats period);
+}
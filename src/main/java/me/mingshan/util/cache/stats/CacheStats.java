@@ -0,0 +1,206 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.stats;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The immutable snapshot of cache statistics.
+ *
+ * @author mingshan
+ */
+public final class CacheStats {
+    private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0,
+        new EnumMap<>(EvictionCause.class), 0);
+
+    private final long hitCount;
+    private final long missCount;
+    private final long loadSuccessCount;
+    private final long loadFailureCount;
+    private final long totalLoadTime;
+    private final Map<EvictionCause, Long> evictionCounts;
+    private final long size;
+
+    /**
+     * Creates the snapshot of statistics.
+     *
+     * @param hitCount the count of lookups which found the value
+     * @param missCount the count of lookups which did not find the value
+     * @param loadSuccessCount the count of loads which completed successfully
+     * @param loadFailureCount the count of loads which failed
+     * @param totalLoadTime the total time of loads in nanoseconds
+     * @param evictionCounts the count of evictions by cause
+     * @param size the count of entries
+     */
+    public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                      long totalLoadTime, Map<EvictionCause, Long> evictionCounts, long size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        EnumMap<EvictionCause, Long> counts = new EnumMap<>(EvictionCause.class);
+        for (EvictionCause cause : EvictionCause.values()) {
+            counts.put(cause, evictionCounts.getOrDefault(cause, 0L));
+        }
+        this.evictionCounts = Collections.unmodifiableMap(counts);
+        this.size = size;
+    }
+
+    /**
+     * Returns the statistics which are all zero, for the caches which do not record statistics.
+     *
+     * @return the empty statistics
+     */
+    public static CacheStats empty() {
+        return EMPTY;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Returns the ratio of hits to requests, returns {@code 1.0} if there is no request.
+     *
+     * @return the hit rate
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * Returns the total time of loads in nanoseconds.
+     *
+     * @return the total load time
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * Returns the average time of loads in nanoseconds.
+     *
+     * @return the average load penalty
+     */
+    public double getAverageLoadPenalty() {
+        long loadCount = loadSuccessCount + loadFailureCount;
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    /**
+     * Returns the total count of evictions.
+     *
+     * @return the count of evictions
+     */
+    public long getEvictionCount() {
+        long count = 0;
+        for (Long causeCount : evictionCounts.values()) {
+            count += causeCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the count of evictions by the specified cause.
+     *
+     * @param cause the cause of eviction
+     * @return the count of evictions
+     */
+    public long getEvictionCount(EvictionCause cause) {
+        return evictionCounts.get(cause);
+    }
+
+    public Map<EvictionCause, Long> getEvictionCounts() {
+        return evictionCounts;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the difference of this and the other statistics, the size is the size of this.
+     * It is useful to compute the statistics in a period.
+     *
+     * @param other the earlier statistics
+     * @return the difference
+     */
+    public CacheStats minus(CacheStats other) {
+        EnumMap<EvictionCause, Long> counts = new EnumMap<>(EvictionCause.class);
+        for (EvictionCause cause : EvictionCause.values()) {
+            counts.put(cause, Math.max(0, getEvictionCount(cause) - other.getEvictionCount(cause)));
+        }
+        return new CacheStats(
+            Math.max(0, hitCount - other.hitCount),
+            Math.max(0, missCount - other.missCount),
+            Math.max(0, loadSuccessCount - other.loadSuccessCount),
+            Math.max(0, loadFailureCount - other.loadFailureCount),
+            Math.max(0, totalLoadTime - other.totalLoadTime),
+            counts, size);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+            "hitCount=" + hitCount +
+            ", missCount=" + missCount +
+            ", hitRate=" + getHitRate() +
+            ", loadSuccessCount=" + loadSuccessCount +
+            ", loadFailureCount=" + loadFailureCount +
+            ", averageLoadPenalty=" + getAverageLoadPenalty() +
+            ", evictionCounts=" + evictionCounts +
+            ", size=" + size +
+            '}';
+    }
+
+    /**
+     * The cause of eviction.
+     */
+    public enum EvictionCause {
+        /**
+         * The entry was evicted due to size or weight constraints
+         */
+        SIZE,
+
+        /**
+         * The entry was expired
+         */
+        EXPIRED,
+
+        /**
+         * The key or value was garbage-collected
+         */
+        COLLECTED
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.stats;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+import me.mingshan.util.cache.Cache;
+import me.mingshan.util.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports the statistics of the caches registered in {@link CacheManager} to the sink periodically.
+ *
+ * @author mingshan
+ */
+@Slf4j
+public class CacheStatsReporter {
+    private final CacheMetricsSink sink;
+    private final Duration period;
+    private final Map<String, CacheStats> lastStats = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates the reporter.
+     *
+     * @param sink the sink of statistics
+     * @param period the period of reporting
+     */
+    public CacheStatsReporter(CacheMetricsSink sink, Duration period) {
+        this.sink = Objects.requireNonNull(sink);
+        this.period = Objects.requireNonNull(period);
+    }
+
+    /**
+     * Starts reporting periodically.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("cache-stats-reporter-%d").setDaemon(true).build());
+        long millis = period.toMillis();
+        scheduler.scheduleAtFixedRate(this::report, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops reporting.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Reports the statistics of all registered caches now.
+     */
+    public void report() {
+        for (String cacheName : CacheManager.getCacheNames()) {
+            Cache cache = CacheManager.getCache(cacheName);
+            if (cache == null) {
+                continue;
+            }
+            try {
+                CacheStats total = cache.stats();
+                CacheStats last = lastStats.put(cacheName, total);
+                sink.report(cacheName, total, last == null ? total : total.minus(last));
+            } catch (Exception e) {
+                log.warn("Failed to report the stats of cache [{}]", cacheName, e);
+            }
+        }
+    }
+}
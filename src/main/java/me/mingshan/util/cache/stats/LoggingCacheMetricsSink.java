@@ -0,0 +1,30 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.stats;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The sink which logs the statistics of the period.
+ *
+ * @author mingshan
+ */
+@Slf4j
+public class LoggingCacheMetricsSink implements CacheMetricsSink {
+
+    @Override
+    public void report(String cacheName, CacheStats total, CacheStats period) {
+        log.info("Cache [{}] stats: {}", cacheName, period);
+    }
+}
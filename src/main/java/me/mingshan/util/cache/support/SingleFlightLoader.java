@@ -0,0 +1,100 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.support;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Runs at most one asynchronous loading per key at a time, the callers of the same key
+ * share the loading which is in progress. Every caller gets its own dependent future, so
+ * completing or cancelling it does not affect the other callers.
+ *
+ * @author mingshan
+ */
+public class SingleFlightLoader {
+    // The asynchronous loadings which are in progress, keyed by cache key.
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loadingFutures = new ConcurrentHashMap<>();
+
+    /**
+     * Looks up the value of the specified key, if it is absent, loads it by the loader
+     * and stores the loaded value.
+     *
+     * @param key the specified key
+     * @param lookup the function to look up the present value
+     * @param loader the function to compute the value asynchronously
+     * @param store the function to store the loaded value
+     * @return the future of the value
+     */
+    public CompletableFuture<Object> load(Object key, Function<Object, Object> lookup,
+                                          Function<Object, CompletableFuture<Object>> loader,
+                                          BiConsumer<Object, Object> store) {
+        Object value = lookup.apply(key);
+        if (value != null) {
+            return CompletableFuture.completedFuture(value);
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existingFuture = loadingFutures.putIfAbsent(key, future);
+        if (existingFuture != null) {
+            return existingFuture.thenApply(Function.identity());
+        }
+
+        // The previous loading may be completed between the first lookup and registration.
+        try {
+            value = lookup.apply(key);
+        } catch (Throwable e) {
+            loadingFutures.remove(key, future);
+            future.completeExceptionally(e);
+            return future;
+        }
+        if (value != null) {
+            loadingFutures.remove(key, future);
+            future.complete(value);
+            return future;
+        }
+
+        CompletableFuture<Object> loading;
+        try {
+            loading = Objects.requireNonNull(loader.apply(key));
+        } catch (Throwable e) {
+            loadingFutures.remove(key, future);
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        loading.whenComplete((result, error) -> {
+            Throwable failure = error;
+            // Stores the value before removing the future, so the value is always visible.
+            if (failure == null && result != null) {
+                try {
+                    store.accept(key, result);
+                } catch (Throwable e) {
+                    failure = e;
+                }
+            }
+            loadingFutures.remove(key, future);
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        });
+        return future.thenApply(Function.identity());
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.support;
+
+import me.mingshan.util.serialize.Serializer;
+import me.mingshan.util.serialize.SerializerHolder;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Encodes the cache value to bytes and decodes it back via {@link Serializer}.
+ * <p>
+ * The value is wrapped in a holder before serializing, because the type of cache value
+ * is unknown when deserializing, the holder makes the serializer record the actual type
+ * of the value.
+ *
+ * @author mingshan
+ */
+public class ValueCodec {
+    private final Serializer serializer;
+
+    /**
+     * Creates the codec with the default serializer {@link SerializerHolder#serializerImpl()}.
+     */
+    public ValueCodec() {
+        this(SerializerHolder.serializerImpl());
+    }
+
+    /**
+     * Creates the codec with the specified serializer.
+     *
+     * @param serializer the serializer
+     */
+    public ValueCodec(Serializer serializer) {
+        this.serializer = Objects.requireNonNull(serializer);
+    }
+
+    /**
+     * Encodes the value to bytes.
+     *
+     * @param value the value
+     * @return the encoded bytes
+     */
+    public byte[] encode(Object value) {
+        return serializer.serializeObject(new ValueHolder(value));
+    }
+
+    /**
+     * Decodes the bytes to value.
+     *
+     * @param bytes the encoded bytes
+     * @return the value, or {@code null} if the bytes is {@code null}
+     */
+    public Object decode(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        ValueHolder holder = serializer.deserializeObject(bytes, ValueHolder.class);
+        return holder == null ? null : holder.value;
+    }
+
+    /**
+     * The holder of value which records the actual type of value.
+     */
+    public static class ValueHolder implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private Object value;
+
+        public ValueHolder() {
+        }
+
+        public ValueHolder(Object value) {
+            this.value = value;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+    }
+}
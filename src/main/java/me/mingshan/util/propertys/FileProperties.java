@@ -3,9 +3,13 @@ package me.mingshan.util.propertys;
 import me.mingshan.util.PropertyUtil;
 import me.mingshan.util.StringUtil;
 import me.mingshan.util.cache.Cache;
+import me.mingshan.util.cache.CacheKey;
+import me.mingshan.util.cache.CacheManager;
 import me.mingshan.util.cache.CachePrefix;
 import me.mingshan.util.cache.caffeine.CaffeineCache;
+import me.mingshan.util.cache.caffeine.CaffeineConfig;
 
+import java.time.Duration;
 import java.util.Properties;
 
 /**
@@ -19,6 +23,14 @@ public class FileProperties implements CustomProperties {
      */
     public static final String PROPERTY_FILE_NAME = "magpie.properties";
 
+    /**
+     * The name of cache which caches the properties.
+     */
+    public static final String PROPERTY_CACHE_NAME = "properties";
+
+    // The default time to live of the property which is absent.
+    private static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofMinutes(1);
+
     /**
      * No Public
      */
@@ -44,22 +56,9 @@ public class FileProperties implements CustomProperties {
 
     @Override
     public Property<String> getString(String name, String fallback) {
-        Cache caffeineCache = CaffeineCache.getInstance();
-        Object cachedValue = caffeineCache.get(CachePrefix.STRING.getValue() + name);
-        String value = null;
-        if (cachedValue == null) {
-            Properties properties = PropertyUtil.loadProperties(PROPERTY_FILE_NAME);
-            Object resource = properties.get(name);
-            if (resource != null) {
-                String tempValue = String.valueOf(resource);
-                if (!StringUtil.isEmpty(tempValue)) {
-                    value = tempValue;
-                    caffeineCache.put(CachePrefix.STRING.getValue() + name, value);
-                }
-            }
-        } else {
-            value = String.valueOf(cachedValue);
-        }
+        Cache caffeineCache = propertyCache();
+        Object cachedValue = caffeineCache.get(CacheKey.of(CachePrefix.STRING, name), FileProperties::loadString);
+        String value = cachedValue == null ? null : String.valueOf(cachedValue);
 
         final String endValue = value;
         return new Property<String>() {
@@ -78,16 +77,9 @@ public class FileProperties implements CustomProperties {
 
     @Override
     public Property<Integer> getInteger(String name, Integer fallback) {
-        Cache caffeineCache = CaffeineCache.getInstance();
-        Object cachedValue = caffeineCache.get(CachePrefix.INTEGER.getValue() + name);
-        Integer value;
-        if (cachedValue == null) {
-            Properties properties = PropertyUtil.loadProperties(PROPERTY_FILE_NAME);
-            value = Integer.valueOf(properties.get(name).toString());
-            caffeineCache.put(CachePrefix.INTEGER.getValue() + name, value);
-        } else {
-            value = Integer.valueOf(cachedValue.toString());
-        }
+        Cache caffeineCache = propertyCache();
+        Object cachedValue = caffeineCache.get(CacheKey.of(CachePrefix.INTEGER, name), key -> Integer.valueOf(loadRaw(key)));
+        Integer value = Integer.valueOf(cachedValue.toString());
 
         return new Property<Integer>() {
 
@@ -105,16 +97,9 @@ public class FileProperties implements CustomProperties {
 
     @Override
     public Property<Boolean> getBoolean(String name, Boolean fallback) {
-        Cache caffeineCache = CaffeineCache.getInstance();
-        Object cachedValue = caffeineCache.get(CachePrefix.BOOLEAN.getValue() + name);
-        Boolean value;
-        if (cachedValue == null) {
-            Properties properties = PropertyUtil.loadProperties(PROPERTY_FILE_NAME);
-            value = Boolean.valueOf(properties.get(name).toString());
-            caffeineCache.put(CachePrefix.BOOLEAN.getValue() + name, value);
-        } else {
-            value = Boolean.valueOf(cachedValue.toString());
-        }
+        Cache caffeineCache = propertyCache();
+        Object cachedValue = caffeineCache.get(CacheKey.of(CachePrefix.BOOLEAN, name), key -> Boolean.valueOf(loadRaw(key)));
+        Boolean value = Boolean.valueOf(cachedValue.toString());
 
         return new Property<Boolean>() {
 
@@ -132,16 +117,9 @@ public class FileProperties implements CustomProperties {
 
     @Override
     public Property<Long> getLong(String name, Long fallback) {
-        Cache caffeineCache = CaffeineCache.getInstance();
-        Object cachedValue = caffeineCache.get(CachePrefix.LONG.getValue() + name);
-        Long value;
-        if (cachedValue == null) {
-            Properties properties = PropertyUtil.loadProperties(PROPERTY_FILE_NAME);
-            value = Long.valueOf(properties.get(name).toString());
-            caffeineCache.put(CachePrefix.LONG.getValue() + name, value);
-        } else {
-            value = Long.valueOf(cachedValue.toString());
-        }
+        Cache caffeineCache = propertyCache();
+        Object cachedValue = caffeineCache.get(CacheKey.of(CachePrefix.LONG, name), key -> Long.valueOf(loadRaw(key)));
+        Long value = Long.valueOf(cachedValue.toString());
 
         return new Property<Long>() {
 
@@ -156,4 +134,36 @@ public class FileProperties implements CustomProperties {
             }
         };
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the cache of properties, the absent properties are cached as known absent,
+     * so looking them up again does not reload the property file.
+     */
+    private static Cache propertyCache() {
+        return CacheManager.getCache(PROPERTY_CACHE_NAME, cacheName -> {
+            CaffeineConfig config = CaffeineConfig.fromPropertyFile(cacheName);
+            if (config.getNegativeTtl() == null) {
+                config.negativeTtl(DEFAULT_NEGATIVE_TTL);
+            }
+            return new CaffeineCache(config);
+        });
+    }
+
+    // The loaders do not capture the name, so no lambda is created on every lookup.
+    private static Object loadString(Object key) {
+        Properties properties = PropertyUtil.loadProperties(PROPERTY_FILE_NAME);
+        Object resource = properties.get(((CacheKey) key).getName());
+        if (resource != null) {
+            String tempValue = String.valueOf(resource);
+            if (!StringUtil.isEmpty(tempValue)) {
+                return tempValue;
+            }
+        }
+        return null;
+    }
+
+    private static String loadRaw(Object key) {
+        Properties properties = PropertyUtil.loadProperties(PROPERTY_FILE_NAME);
+        return properties.get(((CacheKey) key).getName()).toString();
+    }
+}
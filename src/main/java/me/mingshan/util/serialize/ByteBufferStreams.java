@@ -0,0 +1,95 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.serialize;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Adapts {@link ByteBuffer} to {@link OutputStream} and {@link InputStream}, so that the serializers
+ * working on streams can write to and read from the buffer directly, including the direct buffer.
+ *
+ * @author mingshan
+ */
+public final class ByteBufferStreams {
+
+    private ByteBufferStreams() {
+        throw new UnsupportedOperationException("It's prohibited to create instances of the class.");
+    }
+
+    /**
+     * Returns the output stream which writes to the buffer from its position.
+     *
+     * @param buffer the buffer
+     * @return the output stream, throws {@link BufferOverflowException} if the buffer is full
+     */
+    public static OutputStream outputStream(ByteBuffer buffer) {
+        Objects.requireNonNull(buffer);
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                buffer.put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                buffer.put(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * Returns the input stream which reads the remaining bytes of the buffer.
+     *
+     * @param buffer the buffer
+     * @return the input stream
+     */
+    public static InputStream inputStream(ByteBuffer buffer) {
+        Objects.requireNonNull(buffer);
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int n = Math.min(len, buffer.remaining());
+                buffer.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public long skip(long n) {
+                int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+                buffer.position(buffer.position() + skipped);
+                return skipped;
+            }
+
+            @Override
+            public int available() {
+                return buffer.remaining();
+            }
+        };
+    }
+}
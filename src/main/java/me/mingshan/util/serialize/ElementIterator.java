@@ -0,0 +1,165 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.serialize;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The iterator over the elements of a serialized list, the elements are decoded on demand, so the
+ * memory used depends only on the elements consumed.
+ *
+ * @param <T> the type of elements
+ * @author mingshan
+ */
+public interface ElementIterator<T> extends Iterator<T> {
+
+    /**
+     * Returns the number of elements in the serialized list.
+     *
+     * @return the number of elements
+     */
+    int size();
+
+    /**
+     * Returns the index of the element that would be returned by {@link #next()}.
+     *
+     * @return the index of the next element, or {@link #size()} if there are no more elements
+     */
+    int nextIndex();
+
+    @Override
+    default boolean hasNext() {
+        return nextIndex() < size();
+    }
+
+    /**
+     * Skips the next {@code n} elements, or the remaining elements if there are fewer. The skipped
+     * elements are not returned, depending on the format they may still have to be decoded.
+     *
+     * @param n the number of elements to skip
+     */
+    void skip(int n);
+
+    /**
+     * Skips to the element at the specified index, so that the next call to {@link #next()} returns it.
+     *
+     * @param index the index of the element
+     * @throws IllegalArgumentException if the element at the index has been consumed
+     */
+    default void skipTo(int index) {
+        if (index < nextIndex()) {
+            throw new IllegalArgumentException("The element at " + index + " has been consumed");
+        }
+        skip(index - nextIndex());
+    }
+
+    /**
+     * Returns the sequential stream of the remaining elements, the elements are decoded as the stream
+     * is consumed.
+     *
+     * @return the stream of the remaining elements
+     */
+    default Stream<T> stream() {
+        return StreamSupport.stream(
+            Spliterators.spliterator(this, size() - nextIndex(), Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Returns the iterator over the list which has been deserialized.
+     *
+     * @param list the list
+     * @param <T> the type of elements
+     * @return the iterator
+     */
+    static <T> ElementIterator<T> of(List<T> list) {
+        return new AbstractElementIterator<T>(list.size()) {
+            @Override
+            protected T read(int index) {
+                return list.get(index);
+            }
+
+            @Override
+            protected void skipElements(int n) {
+            }
+        };
+    }
+
+    /**
+     * The skeletal implementation which tracks the index, the subclasses decode the elements in order.
+     *
+     * @param <T> the type of elements
+     */
+    abstract class AbstractElementIterator<T> implements ElementIterator<T> {
+        private final int size;
+        private int nextIndex;
+
+        protected AbstractElementIterator(int size) {
+            if (size < 0) {
+                throw new IllegalStateException("Invalid list size: " + size);
+            }
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public int nextIndex() {
+            return nextIndex;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T element = read(nextIndex);
+            nextIndex++;
+            return element;
+        }
+
+        @Override
+        public void skip(int n) {
+            if (n < 0) {
+                throw new IllegalArgumentException("n must not be negative");
+            }
+            int skipped = Math.min(n, size - nextIndex);
+            skipElements(skipped);
+            nextIndex += skipped;
+        }
+
+        /**
+         * Decodes the next element.
+         *
+         * @param index the index of the element
+         * @return the element
+         */
+        protected abstract T read(int index);
+
+        /**
+         * Skips the next {@code n} elements, {@code n} is not more than the remaining elements.
+         *
+         * @param n the number of elements to skip
+         */
+        protected abstract void skipElements(int n);
+    }
+}
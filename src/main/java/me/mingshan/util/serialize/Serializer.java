@@ -13,7 +13,14 @@
  */
 package me.mingshan.util.serialize;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Interface that defines serialize operation.
@@ -41,6 +48,76 @@ public interface Serializer {
      */
     <T> T deserializeObject(byte[] bytes, Class<T> clazz);
 
+    /**
+     * Serializes the specified object into the buffer from its position, the position is advanced
+     * past the written bytes. The bytes are the same as {@link #serializeObject(Object)}.
+     * <p>
+     * The default implementation copies the serialized byte array, the implementations override it
+     * to encode the object into the buffer (a direct buffer as well) without the intermediate array.
+     *
+     * @param obj the specified object
+     * @param buffer the buffer to write
+     * @param <T> the generics class
+     * @throws java.nio.BufferOverflowException if there is insufficient space in the buffer
+     */
+    default <T> void serializeObject(T obj, ByteBuffer buffer) {
+        buffer.put(serializeObject(obj));
+    }
+
+    /**
+     * Deserializes the object from the remaining bytes of the buffer, the position is advanced
+     * past the read bytes.
+     *
+     * @param buffer the buffer to read
+     * @param clazz the specified class
+     * @param <T> the generics class
+     * @return the object
+     */
+    default <T> T deserializeObject(ByteBuffer buffer, Class<T> clazz) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return deserializeObject(bytes, clazz);
+    }
+
+    /**
+     * Serializes the specified object to the output stream, the stream is flushed but not closed.
+     *
+     * @param obj the specified object
+     * @param outputStream the output stream
+     * @param <T> the generics class
+     */
+    default <T> void serializeObject(T obj, OutputStream outputStream) {
+        try {
+            outputStream.write(serializeObject(obj));
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deserializes the object from the input stream, the stream is not closed. The stream should
+     * contain only the object, the bytes after it may be consumed.
+     *
+     * @param inputStream the input stream
+     * @param clazz the specified class
+     * @param <T> the generics class
+     * @return the object
+     */
+    default <T> T deserializeObject(InputStream inputStream, Class<T> clazz) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = inputStream.read(buffer)) != -1) {
+                bytes.write(buffer, 0, n);
+            }
+            return deserializeObject(bytes.toByteArray(), clazz);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Serializes the specified list to byte array.
      *
@@ -59,4 +136,32 @@ public interface Serializer {
      * @return the list
      */
     <T> List<T> deserializeList(byte[] paramArrayOfByte, Class<T> targetClass);
+
+    /**
+     * Deserializes the byte array produced by {@link #serializeList(List)} lazily, the elements are
+     * decoded one by one as the iterator is consumed.
+     * <p>
+     * The default implementation deserializes the whole list first.
+     *
+     * @param paramArrayOfByte the specified byte array
+     * @param targetClass the class of elements
+     * @param <T> the generics class
+     * @return the iterator over the elements
+     */
+    default <T> ElementIterator<T> deserializeListIterator(byte[] paramArrayOfByte, Class<T> targetClass) {
+        return ElementIterator.of(deserializeList(paramArrayOfByte, targetClass));
+    }
+
+    /**
+     * Deserializes the byte array produced by {@link #serializeList(List)} as a stream, the elements
+     * are decoded as the stream is consumed.
+     *
+     * @param paramArrayOfByte the specified byte array
+     * @param targetClass the class of elements
+     * @param <T> the generics class
+     * @return the stream of elements
+     */
+    default <T> Stream<T> deserializeListStream(byte[] paramArrayOfByte, Class<T> targetClass) {
+        return deserializeListIterator(paramArrayOfByte, targetClass).stream();
+    }
 }
@@ -13,12 +13,21 @@
  */
 package me.mingshan.util.serialize.jdk;
 
+import me.mingshan.util.serialize.ByteBufferStreams;
+import me.mingshan.util.serialize.ElementIterator;
+import me.mingshan.util.serialize.ElementIterator.AbstractElementIterator;
 import me.mingshan.util.serialize.Serializer;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -27,6 +36,8 @@ import java.util.List;
  * @author mingshan
  */
 public class JDKSerializer implements Serializer {
+    /** The number of list elements after which the object stream is reset. */
+    private static final int RESET_INTERVAL = 1024;
 
     @Override
     public <T> byte[] serializeObject(T obj) {
@@ -62,13 +73,127 @@ public class JDKSerializer implements Serializer {
         return (T) obj;
     }
 
+    @Override
+    public <T> void serializeObject(T obj, ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            serializeObject(obj, ByteBufferStreams.outputStream(buffer));
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> T deserializeObject(ByteBuffer buffer, Class<T> clazz) {
+        return deserializeObject(ByteBufferStreams.inputStream(buffer), clazz);
+    }
+
+    @Override
+    public <T> void serializeObject(T obj, OutputStream outputStream) {
+        try {
+            ObjectOutputStream oo = new ObjectOutputStream(outputStream);
+            oo.writeObject(obj);
+            oo.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T deserializeObject(InputStream inputStream, Class<T> clazz) {
+        try {
+            ObjectInputStream oi = new ObjectInputStream(inputStream);
+            return (T) oi.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Serializes the list as the element count followed by the elements, the class descriptor of
+     * the elements is written only once by {@link ObjectOutputStream}. The stream is reset every
+     * {@value #RESET_INTERVAL} elements, so the handle tables of both sides do not keep all the elements
+     * of a very large list.
+     */
     @Override
     public <T> byte[] serializeList(List<T> objList) {
-        return new byte[0];
+        try {
+            ByteArrayOutputStream bo = new ByteArrayOutputStream();
+            ObjectOutputStream oo = new ObjectOutputStream(bo);
+            oo.writeInt(objList.size());
+            for (int i = 0; i < objList.size(); i++) {
+                if (i > 0 && i % RESET_INTERVAL == 0) {
+                    oo.reset();
+                }
+                oo.writeObject(objList.get(i));
+            }
+            oo.flush();
+            return bo.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
     }
 
     @Override
     public <T> List<T> deserializeList(byte[] paramArrayOfByte, Class<T> targetClass) {
-        return null;
+        try {
+            ObjectInputStream oi = new ObjectInputStream(new ByteArrayInputStream(paramArrayOfByte));
+            int size = oi.readInt();
+            // The count comes from the input, do not allocate by it directly.
+            List<T> result = new ArrayList<>(Math.min(size, RESET_INTERVAL));
+            for (int i = 0; i < size; i++) {
+                result.add(targetClass.cast(oi.readObject()));
+            }
+            return result;
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> ElementIterator<T> deserializeListIterator(byte[] paramArrayOfByte, Class<T> targetClass) {
+        try {
+            ObjectInputStream oi = new ObjectInputStream(new ByteArrayInputStream(paramArrayOfByte));
+            return new JDKElementIterator<>(oi, targetClass, oi.readInt());
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads one object from the stream per element, the handle table of the stream is bounded by
+     * the periodic resets written by {@link #serializeList(List)}.
+     */
+    private static final class JDKElementIterator<T> extends AbstractElementIterator<T> {
+        private final ObjectInputStream input;
+        private final Class<T> targetClass;
+
+        JDKElementIterator(ObjectInputStream input, Class<T> targetClass, int size) {
+            super(size);
+            this.input = input;
+            this.targetClass = targetClass;
+        }
+
+        @Override
+        protected T read(int index) {
+            return targetClass.cast(readElement());
+        }
+
+        @Override
+        protected void skipElements(int n) {
+            for (int i = 0; i < n; i++) {
+                readElement();
+            }
+        }
+
+        private Object readElement() {
+            try {
+                return input.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
     }
 }
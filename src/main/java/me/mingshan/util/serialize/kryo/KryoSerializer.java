@@ -2,8 +2,13 @@ package me.mingshan.util.serialize.kryo;
 
 
 import me.mingshan.util.KryoUtil;
+import me.mingshan.util.serialize.ElementIterator;
+import me.mingshan.util.serialize.ElementIterator.AbstractElementIterator;
 import me.mingshan.util.serialize.Serializer;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -22,13 +27,63 @@ public class KryoSerializer implements Serializer {
         return KryoUtil.readObjectFromByteArray(bytes, clazz);
     }
 
+    @Override
+    public <T> void serializeObject(T obj, ByteBuffer buffer) {
+        KryoUtil.writeObjectToByteBuffer(obj, buffer);
+    }
+
+    @Override
+    public <T> T deserializeObject(ByteBuffer buffer, Class<T> clazz) {
+        return KryoUtil.readObjectFromByteBuffer(buffer, clazz);
+    }
+
+    @Override
+    public <T> void serializeObject(T obj, OutputStream outputStream) {
+        KryoUtil.writeObjectToStream(obj, outputStream);
+    }
+
+    @Override
+    public <T> T deserializeObject(InputStream inputStream, Class<T> clazz) {
+        return KryoUtil.readObjectFromStream(inputStream, clazz);
+    }
+
     @Override
     public <T> byte[] serializeList(List<T> objList) {
-        return null;
+        return KryoUtil.writeListToByteArray(objList);
     }
 
     @Override
     public <T> List<T> deserializeList(byte[] paramArrayOfByte, Class<T> targetClass) {
-        return null;
+        return KryoUtil.readListFromByteArray(paramArrayOfByte, targetClass);
+    }
+
+    @Override
+    public <T> ElementIterator<T> deserializeListIterator(byte[] paramArrayOfByte, Class<T> targetClass) {
+        return new KryoElementIterator<>(KryoUtil.openListFromByteArray(paramArrayOfByte), targetClass);
+    }
+
+    /**
+     * Reads one element per call from the list reader, see
+     * {@link KryoUtil#openListFromByteArray(byte[])} for the thread safety.
+     */
+    private static final class KryoElementIterator<T> extends AbstractElementIterator<T> {
+        private final KryoUtil.ListReader reader;
+        private final Class<T> targetClass;
+
+        KryoElementIterator(KryoUtil.ListReader reader, Class<T> targetClass) {
+            super(reader.size());
+            this.reader = reader;
+            this.targetClass = targetClass;
+        }
+
+        @Override
+        protected T read(int index) {
+            return targetClass.cast(reader.readNext());
+        }
+
+        @Override
+        protected void skipElements(int n) {
+            reader.skip(n);
+        }
     }
 }
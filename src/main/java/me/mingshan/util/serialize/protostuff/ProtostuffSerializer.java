@@ -13,15 +13,24 @@
  */
 package me.mingshan.util.serialize.protostuff;
 
+import io.protostuff.ByteBufferInput;
+import io.protostuff.CodedInput;
 import io.protostuff.LinkedBuffer;
 import io.protostuff.ProtostuffIOUtil;
 import io.protostuff.Schema;
 import io.protostuff.runtime.RuntimeSchema;
+import me.mingshan.util.serialize.ByteBufferStreams;
+import me.mingshan.util.serialize.ElementIterator;
+import me.mingshan.util.serialize.ElementIterator.AbstractElementIterator;
 import me.mingshan.util.serialize.Serializer;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -59,6 +68,60 @@ public class ProtostuffSerializer implements Serializer {
         }
     }
 
+    @Override
+    public <T> void serializeObject(T obj, ByteBuffer buffer) {
+        int start = buffer.position();
+        try {
+            serializeObject(obj, ByteBufferStreams.outputStream(buffer));
+        } catch (BufferOverflowException e) {
+            buffer.position(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public <T> T deserializeObject(ByteBuffer buffer, Class<T> clazz) {
+        try {
+            Schema<T> schema = getSchema(clazz);
+            T message = schema.newMessage();
+            ByteBufferInput input = new ByteBufferInput(buffer, true);
+            schema.mergeFrom(input, message);
+            input.checkLastTagWas(0);
+            // The message is not delimited, it consumes all the remaining bytes.
+            buffer.position(buffer.limit());
+            return message;
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> void serializeObject(T obj, OutputStream outputStream) {
+        Class<T> cls = (Class<T>) obj.getClass();
+        LinkedBuffer buffer = LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
+        try {
+            ProtostuffIOUtil.writeTo(outputStream, obj, getSchema(cls), buffer);
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public <T> T deserializeObject(InputStream inputStream, Class<T> clazz) {
+        try {
+            Schema<T> schema = getSchema(clazz);
+            T message = schema.newMessage();
+            ProtostuffIOUtil.mergeFrom(inputStream, message, schema);
+            return message;
+        } catch (IOException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public <T> byte[] serializeList(List<T> objList) {
         if (objList == null || objList.isEmpty()) {
@@ -104,6 +167,21 @@ public class ProtostuffSerializer implements Serializer {
         return result;
     }
 
+    @Override
+    public <T> ElementIterator<T> deserializeListIterator(byte[] paramArrayOfByte, Class<T> targetClass) {
+        if (paramArrayOfByte == null || paramArrayOfByte.length == 0) {
+            throw new RuntimeException("反序列化对象发生异常,byte序列为空!");
+        }
+
+        // Same layout as ProtostuffIOUtil.parseListFrom: the count, then each message terminated by tag 0.
+        CodedInput input = new CodedInput(paramArrayOfByte, 0, paramArrayOfByte.length, true);
+        try {
+            return new ProtostuffElementIterator<>(input, getSchema(targetClass), input.readRawVarint32());
+        } catch (IOException e) {
+            throw new RuntimeException("反序列化对象列表发生异常!", e);
+        }
+    }
+
     /**
      * Simplify the way to get schema, do not need to cache the generated schema in this class
      * because it is automatically cached in {@link RuntimeSchema}.
@@ -115,4 +193,38 @@ public class ProtostuffSerializer implements Serializer {
     private static <T> Schema<T> getSchema(Class<T> cls) {
         return RuntimeSchema.getSchema(cls);
     }
+
+    /**
+     * Decodes one message per element, a skipped element is decoded into a new message which
+     * is discarded, because merging into the same message would accumulate its repeated fields.
+     */
+    private static final class ProtostuffElementIterator<T> extends AbstractElementIterator<T> {
+        private final CodedInput input;
+        private final Schema<T> schema;
+
+        ProtostuffElementIterator(CodedInput input, Schema<T> schema, int size) {
+            super(size);
+            this.input = input;
+            this.schema = schema;
+        }
+
+        @Override
+        protected T read(int index) {
+            try {
+                T message = schema.newMessage();
+                schema.mergeFrom(input, message);
+                input.checkLastTagWas(0);
+                return message;
+            } catch (IOException e) {
+                throw new RuntimeException("反序列化对象列表发生异常!", e);
+            }
+        }
+
+        @Override
+        protected void skipElements(int n) {
+            for (int i = 0; i < n; i++) {
+                read(i);
+            }
+        }
+    }
 }
@@ -0,0 +1,104 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import me.mingshan.util.entity.Person;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link KryoUtil} with the stream based serialization it used to do, which creates a
+ * {@link ByteArrayOutputStream} and a new {@link Output} on every write and wraps the bytes in a
+ * {@link ByteArrayInputStream} on every read. Run the main method to see the time and the allocation
+ * ({@code gc.alloc.rate.norm}) per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KryoUtilBenchmark {
+    private Person person;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        person = new Person();
+        person.setName("mingshan");
+        person.setAge(18);
+        person.setType("benchmark");
+        person.setState(true);
+        bytes = KryoUtil.writeToByteArray(person);
+    }
+
+    @Benchmark
+    public byte[] writeStream() {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        Output output = new Output(byteArrayOutputStream);
+
+        Kryo kryo = KryoUtil.getInstance();
+        kryo.writeClassAndObject(output, person);
+        output.flush();
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] writePooled() {
+        return KryoUtil.writeToByteArray(person);
+    }
+
+    @Benchmark
+    public Object readStream() {
+        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bytes);
+        Input input = new Input(byteArrayInputStream);
+
+        Kryo kryo = KryoUtil.getInstance();
+        return kryo.readClassAndObject(input);
+    }
+
+    @Benchmark
+    public Object readPooled() {
+        return KryoUtil.readFromByteArray(bytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(KryoUtilBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
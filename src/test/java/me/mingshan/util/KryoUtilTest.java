@@ -0,0 +1,74 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import me.mingshan.util.entity.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author mingshan
+ */
+public class KryoUtilTest {
+
+    @Test
+    public void testRoundTrip() {
+        Person person = new Person();
+        person.setName("mingshan");
+        person.setAge(18);
+        person.setState(true);
+
+        Person copy = KryoUtil.readFromByteArray(KryoUtil.writeToByteArray(person));
+        Assert.assertEquals("mingshan", copy.getName());
+        Assert.assertEquals(18, copy.getAge());
+
+        copy = KryoUtil.readObjectFromByteArray(KryoUtil.writeObjectToByteArray(person), Person.class);
+        Assert.assertEquals("mingshan", copy.getName());
+        Assert.assertTrue(copy.isState());
+
+        Map<String, Integer> map = new HashMap<>();
+        map.put("a", 1);
+        Assert.assertEquals(map, KryoUtil.readFromString(KryoUtil.writeToString(map)));
+    }
+
+    @Test
+    public void testSameFormatAsStream() {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            list.add("value-" + i);
+        }
+
+        // 序列化结果与直接写入流的结果一致，缓冲区增长后也一致
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            Output output = new Output(stream);
+            Kryo kryo = KryoUtil.getInstance();
+            kryo.writeClassAndObject(output, list);
+            output.flush();
+
+            byte[] bytes = KryoUtil.writeToByteArray(list);
+            Assert.assertArrayEquals(stream.toByteArray(), bytes);
+            Assert.assertEquals(list, KryoUtil.readFromByteArray(bytes));
+            Assert.assertEquals("small", KryoUtil.readFromByteArray(KryoUtil.writeToByteArray("small")));
+        }
+    }
+}
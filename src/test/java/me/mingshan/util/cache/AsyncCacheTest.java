@@ -0,0 +1,129 @@
+package me.mingshan.util.cache;
+
+import me.mingshan.util.cache.caffeine.CaffeineAsyncCache;
+import me.mingshan.util.cache.caffeine.CaffeineCache;
+import me.mingshan.util.cache.caffeine.CaffeineConfig;
+import me.mingshan.util.cache.redis.InMemoryRedisConnectionFactory;
+import me.mingshan.util.cache.redis.ReactiveRedisCache;
+import me.mingshan.util.cache.multilevel.TwoLevelCache;
+import me.mingshan.util.cache.redis.RedisCache;
+import me.mingshan.util.cache.support.ValueCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncCacheTest {
+
+    @Test
+    public void testCaffeineAsyncCache() throws InterruptedException {
+        CaffeineAsyncCache cache = new CaffeineAsyncCache(CaffeineConfig.of("async").maximumSize(100));
+        verify(cache);
+        Assert.assertTrue(cache.stats().getLoadSuccessCount() > 0);
+        Assert.assertTrue(cache.stats().getHitCount() > 0);
+
+        cache.put("short", "value", Duration.ofMillis(50)).join();
+        Assert.assertEquals("value", cache.get("short").join());
+        Thread.sleep(100);
+        Assert.assertNull(cache.get("short").join());
+    }
+
+    @Test
+    public void testReactiveRedisCache() {
+        InMemoryRedisConnectionFactory connectionFactory = new InMemoryRedisConnectionFactory();
+        ReactiveRedisCache cache = new ReactiveRedisCache("async", connectionFactory.reactive());
+        verify(cache);
+
+        // The data is shared with the blocking Redis cache.
+        RedisCache redisCache = new RedisCache("async", connectionFactory);
+        Assert.assertEquals("1", redisCache.get("a"));
+        redisCache.put("blocking", "value");
+        Assert.assertEquals("value", cache.get("blocking").join());
+    }
+
+    @Test
+    public void testReactiveRedisCacheLooksUpAgainBeforeLoading() {
+        InMemoryRedisConnectionFactory connectionFactory = new InMemoryRedisConnectionFactory();
+        ReactiveRedisCache cache = new ReactiveRedisCache("async", connectionFactory.reactive());
+        RedisCache redisCache = new RedisCache("async", connectionFactory);
+
+        // Another loading stores the value between the miss and the registration.
+        AtomicInteger getCount = new AtomicInteger();
+        connectionFactory.setCommandListener(command -> {
+            if ("get".equals(command) && getCount.incrementAndGet() == 2) {
+                redisCache.put("raced", "stored");
+            }
+        });
+        AtomicInteger loadCount = new AtomicInteger();
+        Assert.assertEquals("stored", cache.get("raced", key -> {
+            loadCount.incrementAndGet();
+            return CompletableFuture.completedFuture("loaded");
+        }).join());
+        Assert.assertEquals(0, loadCount.get());
+    }
+
+    @Test
+    public void testRedisCacheGetAsyncLooksUpOnExecutor() {
+        InMemoryRedisConnectionFactory connectionFactory = new InMemoryRedisConnectionFactory();
+        List<Runnable> tasks = new ArrayList<>();
+        RedisCache redisCache = new RedisCache("async", connectionFactory, null, new ValueCodec(), tasks::add);
+        TwoLevelCache cache = new TwoLevelCache("async",
+            new CaffeineCache(CaffeineConfig.of("async").maximumSize(100)), redisCache);
+        redisCache.put("a", "1");
+        int commandCount = connectionFactory.getCommandCount();
+
+        // No command is sent on the caller's thread.
+        CompletableFuture<Object> future = cache.getAsync("a", key -> CompletableFuture.completedFuture("loaded"));
+        Assert.assertFalse(future.isDone());
+        Assert.assertEquals(commandCount, connectionFactory.getCommandCount());
+
+        Assert.assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        Assert.assertEquals("1", future.join());
+        Assert.assertEquals("1", cache.get("a"));
+    }
+
+    private static void verify(AsyncCache cache) {
+        AtomicInteger loadCount = new AtomicInteger();
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        CompletableFuture<Object> first = cache.get("a", key -> {
+            loadCount.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<Object> second = cache.get("a", key -> {
+            loadCount.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        Assert.assertFalse(first.isDone());
+        pending.complete("1");
+        Assert.assertEquals("1", first.join());
+        Assert.assertEquals("1", second.join());
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertEquals("1", cache.get("a").join());
+
+        cache.put("b", "2").join();
+        Map<Object, Object> expected = new HashMap<>();
+        expected.put("a", "1");
+        expected.put("b", "2");
+        Assert.assertEquals(expected, cache.getAll(Arrays.asList("a", "b", "c")).join());
+
+        expected.put("c", "3");
+        Assert.assertEquals(expected, cache.getAll(Arrays.asList("a", "b", "c"), keys -> {
+            Assert.assertEquals(1, keys.size());
+            Map<Object, Object> loaded = new HashMap<>();
+            keys.forEach(key -> loaded.put(key, "3"));
+            return CompletableFuture.completedFuture(loaded);
+        }).join());
+        Assert.assertEquals("3", cache.get("c").join());
+
+        cache.evict("c").join();
+        Assert.assertNull(cache.get("c").join());
+    }
+}
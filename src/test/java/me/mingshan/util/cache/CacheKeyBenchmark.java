@@ -0,0 +1,86 @@
+package me.mingshan.util.cache;
+
+import me.mingshan.util.cache.caffeine.CaffeineCache;
+import me.mingshan.util.cache.caffeine.CaffeineConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cache lookup with the key concatenated by {@link CachePrefix} and with {@link CacheKey},
+ * run the main method to see the time and the allocation ({@code gc.alloc.rate.norm}) per lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheKeyBenchmark {
+    private static final int SIZE = 1024;
+
+    private final String[] names = new String[SIZE];
+    private final long[] ids = new long[SIZE];
+    private Cache cache;
+    private int index;
+
+    @Setup
+    public void setup() {
+        cache = new CaffeineCache(CaffeineConfig.of("benchmark").maximumSize(SIZE * 4));
+        for (int i = 0; i < SIZE; i++) {
+            names[i] = "hutils.property." + i;
+            ids[i] = 100_000_000L + i;
+            cache.put(CachePrefix.STRING.getValue() + names[i], i);
+            cache.put(CacheKey.of(CachePrefix.STRING, names[i]), i);
+            cache.put(CachePrefix.LONG.getValue() + ids[i], i);
+            cache.put(CacheKey.of(CachePrefix.LONG, ids[i]), i);
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (SIZE - 1);
+        return index;
+    }
+
+    @Benchmark
+    public Object prefixName() {
+        return cache.get(CachePrefix.STRING.getValue() + names[next()]);
+    }
+
+    @Benchmark
+    public Object cacheKeyName() {
+        return cache.get(CacheKey.of(CachePrefix.STRING, names[next()]));
+    }
+
+    @Benchmark
+    public Object prefixLong() {
+        return cache.get(CachePrefix.LONG.getValue() + ids[next()]);
+    }
+
+    @Benchmark
+    public Object cacheKeyLong() {
+        return cache.get(CacheKey.of(CachePrefix.LONG, ids[next()]));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(CacheKeyBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,36 @@
+package me.mingshan.util.cache;
+
+import me.mingshan.util.serialize.jdk.JDKSerializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CacheKeyTest {
+
+    @Test
+    public void testNamedKey() {
+        CacheKey key = CacheKey.of(CachePrefix.STRING, "name");
+        Assert.assertSame(key, CacheKey.of(CachePrefix.STRING, new String("name")));
+        Assert.assertNotEquals(key, CacheKey.of(CachePrefix.INTEGER, "name"));
+        Assert.assertEquals(CachePrefix.STRING.getValue() + "name", key.toString());
+        Assert.assertEquals("name", key.getName());
+    }
+
+    @Test
+    public void testNumericKey() {
+        Assert.assertSame(CacheKey.of(CachePrefix.LONG, 1L), CacheKey.of(CachePrefix.LONG, 1));
+        CacheKey key = CacheKey.of(CachePrefix.LONG, 123456789L);
+        CacheKey other = CacheKey.of(CachePrefix.LONG, 123456789L);
+        Assert.assertEquals(key, other);
+        Assert.assertEquals(key.hashCode(), other.hashCode());
+        Assert.assertNotEquals(key, CacheKey.of(CachePrefix.INTEGER, 123456789L));
+        Assert.assertEquals("Long#123456789", key.toString());
+        Assert.assertNull(key.getName());
+    }
+
+    @Test
+    public void testSerialize() {
+        JDKSerializer serializer = new JDKSerializer();
+        CacheKey key = CacheKey.of(CachePrefix.STRING, "serialized");
+        Assert.assertSame(key, serializer.deserializeObject(serializer.serializeObject(key), CacheKey.class));
+    }
+}
@@ -0,0 +1,88 @@
+package me.mingshan.util.cache;
+
+import me.mingshan.util.cache.caffeine.CaffeineCache;
+import me.mingshan.util.cache.caffeine.CaffeineConfig;
+import me.mingshan.util.cache.snapshot.CacheSnapshotter;
+import me.mingshan.util.cache.snapshot.SnapshotEntry;
+import me.mingshan.util.entity.Person;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+public class CacheSnapshotTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testSaveAndRestore() throws Exception {
+        Path directory = temporaryFolder.newFolder("snapshot").toPath();
+        CaffeineCache cache = new CaffeineCache(CaffeineConfig.of("snapshot")
+            .maximumSize(1000).expireAfterWrite(Duration.ofMinutes(10)));
+        for (int i = 0; i < 100; i++) {
+            Person person = new Person();
+            person.setName("name" + i);
+            person.setAge(i);
+            cache.put(i, person);
+        }
+
+        CacheSnapshotter snapshotter = new CacheSnapshotter(cache, directory, 50, 4);
+        Assert.assertEquals(50, snapshotter.save());
+
+        CaffeineCache restoredCache = new CaffeineCache(CaffeineConfig.of("snapshot")
+            .maximumSize(1000).expireAfterWrite(Duration.ofMinutes(10)));
+        restoredCache.put(0, "newer");
+        int restored = new CacheSnapshotter(restoredCache, directory, 50, 4).restore();
+
+        List<SnapshotEntry> entries = restoredCache.hottest(100);
+        Assert.assertTrue(restored >= 49);
+        Assert.assertEquals(restored + 1, entries.size());
+        for (SnapshotEntry entry : entries) {
+            // The restored entries do not live longer than the original ones.
+            Assert.assertTrue(entry.getExpireAtMillis() <= System.currentTimeMillis() + Duration.ofMinutes(10).toMillis());
+            Object value = entry.getValue();
+            if (value instanceof Person) {
+                Assert.assertEquals(entry.getKey(), ((Person) value).getAge());
+            } else {
+                // The value already in cache is not replaced.
+                Assert.assertEquals("newer", value);
+            }
+        }
+    }
+
+    @Test
+    public void testRestoreOnlyOwnShards() throws Exception {
+        Path directory = temporaryFolder.newFolder("snapshot").toPath();
+        CaffeineCache other = new CaffeineCache(CaffeineConfig.of("user.profile").maximumSize(100));
+        other.put("profile", "value");
+        new CacheSnapshotter(other, directory, 10, 1).save();
+
+        // The shards of cache "user.profile" are not restored into cache "user".
+        CaffeineCache cache = new CaffeineCache(CaffeineConfig.of("user").maximumSize(100));
+        Assert.assertEquals(0, new CacheSnapshotter(cache, directory, 10, 1).restore());
+        Assert.assertNull(cache.get("profile"));
+    }
+
+    @Test
+    public void testRestoreRemainingTime() {
+        CaffeineCache cache = new CaffeineCache(CaffeineConfig.of("snapshot")
+            .expireAfterWrite(Duration.ofMinutes(10)));
+        long now = System.currentTimeMillis();
+        Assert.assertFalse(cache.restore(new SnapshotEntry("expired", "value", now - 1)));
+        Assert.assertTrue(cache.restore(new SnapshotEntry("short", "value", now + 60_000)));
+        Assert.assertNull(cache.get("expired"));
+
+        SnapshotEntry entry = cache.hottest(10).get(0);
+        Assert.assertEquals("short", entry.getKey());
+        Assert.assertTrue(entry.getExpireAtMillis() <= System.currentTimeMillis() + 60_000);
+
+        // The fixed expire time of both policies can not be shortened per entry.
+        CaffeineCache fixed = new CaffeineCache(CaffeineConfig.of("snapshot")
+            .expireAfterWrite(Duration.ofMinutes(10)).expireAfterAccess(Duration.ofMinutes(1)));
+        Assert.assertFalse(fixed.restore(new SnapshotEntry("short", "value", now + 60_000)));
+    }
+}
@@ -1,9 +1,30 @@
 package me.mingshan.util.cache;
 
 import me.mingshan.util.cache.caffeine.CaffeineCache;
+import me.mingshan.util.cache.caffeine.CaffeineConfig;
+import me.mingshan.util.cache.caffeine.ReflectiveSizeWeigher;
+import me.mingshan.util.cache.stats.CacheMetricsSink;
+import me.mingshan.util.cache.stats.CacheStats;
+import me.mingshan.util.cache.stats.CacheStatsReporter;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 public class CaffeineTest {
 
     @Test
@@ -15,4 +36,346 @@ public class CaffeineTest {
         Object result2 = cache.putIfPresent("zz", "88");
         Assert.assertEquals("66", result2);
     }
+
+    @Test
+    public void testBulk() {
+        Cache cache = new CaffeineCache();
+        Map<Object, Object> values = new HashMap<>();
+        values.put("bulk1", "1");
+        values.put("bulk2", "2");
+        cache.putAll(values);
+
+        Map<Object, Object> result = cache.getAll(Arrays.asList("bulk1", "bulk2", "bulk3"));
+        Assert.assertEquals(values, result);
+
+        AtomicInteger loadCount = new AtomicInteger();
+        result = cache.getAll(Arrays.asList("bulk1", "bulk3", "bulk4"), missingKeys -> {
+            loadCount.incrementAndGet();
+            Assert.assertEquals(2, missingKeys.size());
+            Map<Object, Object> loaded = new HashMap<>();
+            for (Object key : missingKeys) {
+                loaded.put(key, key + "-loaded");
+            }
+            return loaded;
+        });
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertEquals(3, result.size());
+        Assert.assertEquals("bulk3-loaded", cache.get("bulk3"));
+
+        cache.evictAll(Arrays.asList("bulk1", "bulk2", "bulk3", "bulk4"));
+        Assert.assertTrue(cache.getAll(Arrays.asList("bulk1", "bulk2", "bulk3", "bulk4")).isEmpty());
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        Cache cache = new CaffeineCache();
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    return cache.get("singleFlight", key -> {
+                        loadCount.incrementAndGet();
+                        try {
+                            Thread.sleep(100);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return "loaded";
+                    });
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                Assert.assertEquals("loaded", future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testGetAsync() throws Exception {
+        Cache cache = new CaffeineCache();
+        AtomicInteger loadCount = new AtomicInteger();
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+
+        CompletableFuture<Object> future1 = cache.getAsync("async", key -> {
+            loadCount.incrementAndGet();
+            return loading;
+        });
+        CompletableFuture<Object> future2 = cache.getAsync("async", key -> {
+            loadCount.incrementAndGet();
+            return loading;
+        });
+        CompletableFuture<Object> future3 = cache.getAsync("async", key -> {
+            loadCount.incrementAndGet();
+            return loading;
+        });
+        // Every caller gets its own future, cancelling one does not affect the others.
+        Assert.assertNotSame(future1, future2);
+        future3.cancel(false);
+
+        loading.complete("value");
+        Assert.assertEquals("value", future1.get());
+        Assert.assertEquals("value", future2.get());
+        Assert.assertEquals("value", cache.get("async"));
+        Assert.assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testNamedCache() {
+        CaffeineCache cache1 = CaffeineCache.getInstance("named1");
+        CaffeineCache cache2 = CaffeineCache.getInstance("named2");
+        Assert.assertEquals("named1", cache1.getName());
+        Assert.assertSame(cache1, CaffeineCache.getInstance("named1"));
+        Assert.assertSame(cache1, CacheManager.getCache("named1"));
+
+        cache1.put("key", "value1");
+        Assert.assertNull(cache2.get("key"));
+    }
+
+    @Test
+    public void testConfigFromProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("hutils.cache.small.maximum-size", "10");
+        properties.setProperty("hutils.cache.small.expire-after-write", "1m");
+
+        Cache cache = new CaffeineCache(CaffeineConfig.fromProperties("small", properties));
+        Assert.assertEquals("small", cache.getName());
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        ((CaffeineCache) cache).cleanUp();
+        Assert.assertTrue(cache.getAll(IntStream.range(0, 100).boxed().collect(Collectors.toList())).size() <= 10);
+    }
+
+    @Test
+    public void testPropertiesOverrideDefaultConfig() {
+        Properties properties = new Properties();
+        properties.setProperty("hutils.cache.partial.record-stats", "false");
+
+        // The properties which are not set keep the defaults.
+        CaffeineConfig config = CaffeineConfig.fromProperties("partial", properties);
+        CaffeineConfig defaults = CaffeineConfig.defaultConfig("partial");
+        Assert.assertFalse(config.isRecordStats());
+        Assert.assertEquals(defaults.getMaximumSize(), config.getMaximumSize());
+        Assert.assertEquals(defaults.getExpireAfterWrite(), config.getExpireAfterWrite());
+
+        // The maximum weight replaces the default maximum size.
+        properties.setProperty("hutils.cache.partial.maximum-weight", "10000");
+        config = CaffeineConfig.fromProperties("partial", properties);
+        Assert.assertEquals(10000, config.getMaximumWeight());
+        Assert.assertEquals(-1, config.getMaximumSize());
+        new CaffeineCache(config).put("key", "value");
+    }
+
+    @Test
+    public void testMaximumSizeAndWeightProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("hutils.cache.bounded.maximum-size", "10");
+        properties.setProperty("hutils.cache.bounded.maximum-weight", "10000");
+        try {
+            CaffeineConfig.fromProperties("bounded", properties);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("maximum-size"));
+            Assert.assertTrue(e.getMessage().contains("maximum-weight"));
+        }
+    }
+
+    @Test
+    public void testRefreshPropertyRequiresLoader() {
+        Properties properties = new Properties();
+        properties.setProperty("hutils.cache.refreshed.refresh-after-write", "1m");
+
+        // The refresh-after-write is ignored without a loader, so the cache can still be created.
+        CaffeineConfig config = CaffeineConfig.fromProperties("refreshed", properties, null);
+        Assert.assertNull(config.getRefreshAfterWrite());
+        Cache cache = new CaffeineCache(config);
+        cache.put("key", "value");
+        Assert.assertEquals("value", cache.get("key"));
+
+        config = CaffeineConfig.fromProperties("refreshed", properties, key -> "loaded");
+        Assert.assertEquals(Duration.ofMinutes(1), config.getRefreshAfterWrite());
+        Assert.assertEquals("loaded", new CaffeineCache(config).get("key", key -> "loaded"));
+    }
+
+    @Test
+    public void testRefreshAhead() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        CaffeineCache cache = new CaffeineCache(CaffeineConfig.of("refresh")
+            .refreshAfterWrite(Duration.ofMillis(50))
+            .loader(key -> key + "-" + version.incrementAndGet()));
+
+        Assert.assertEquals("k-1", cache.get("k", key -> key + "-" + version.incrementAndGet()));
+        Thread.sleep(100);
+
+        // The stale value is returned immediately and the reload runs in background.
+        Assert.assertEquals("k-1", cache.get("k"));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!"k-2".equals(cache.get("k")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals("k-2", cache.get("k"));
+        Assert.assertEquals(1, cache.getRefreshMetrics().getSuccessCount());
+        Assert.assertEquals(0, cache.getRefreshMetrics().getFailureCount());
+    }
+
+    @Test
+    public void testRefreshRejected() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        CaffeineCache cache = new CaffeineCache(CaffeineConfig.of("rejected")
+            .refreshAfterWrite(Duration.ofMillis(50))
+            .refreshExecutor(command -> {
+                throw new RejectedExecutionException();
+            })
+            .loader(key -> key + "-" + version.incrementAndGet()));
+
+        Assert.assertEquals("k-1", cache.get("k", key -> key + "-" + version.incrementAndGet()));
+        Thread.sleep(100);
+
+        // The rejected refresh keeps the current value and is not a load failure.
+        Assert.assertEquals("k-1", cache.get("k"));
+        Assert.assertEquals("k-1", cache.get("k"));
+        Assert.assertEquals(1, cache.getRefreshMetrics().getRejectedCount());
+        Assert.assertEquals(0, cache.getRefreshMetrics().getFailureCount());
+        Assert.assertEquals(0, cache.stats().getLoadFailureCount());
+    }
+
+    @Test
+    public void testWeighted() {
+        Properties properties = new Properties();
+        properties.setProperty("hutils.cache.weighted.maximum-weight", "10000");
+        properties.setProperty("hutils.cache.weighted.weigher", "serialized");
+        CaffeineCache cache = new CaffeineCache(CaffeineConfig.fromProperties("weighted", properties));
+
+        cache.put("small", Boolean.TRUE);
+        cache.cleanUp();
+        long smallWeight = cache.getWeightedSize();
+        Assert.assertTrue(smallWeight > 0);
+
+        cache.put("large", IntStream.range(0, 1000).boxed().collect(Collectors.toList()));
+        cache.cleanUp();
+        Assert.assertTrue(cache.getWeightedSize() > smallWeight * 100);
+        Assert.assertTrue(cache.getWeightedSize() <= 10000);
+
+        long shallow = ReflectiveSizeWeigher.shallow().weigh("k", new int[100]);
+        Assert.assertEquals(416, shallow);
+        long deep = ReflectiveSizeWeigher.deep().weigh("k", IntStream.range(0, 100).boxed().collect(Collectors.toList()));
+        Assert.assertTrue(deep > ReflectiveSizeWeigher.shallow().weigh("k", new Object[100]));
+    }
+
+    @Test
+    public void testStats() {
+        CaffeineCache cache = new CaffeineCache(CaffeineConfig.of("stats").maximumSize(10));
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("b");
+        cache.get("c", key -> "3");
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        // The size is estimated, a single maintenance may leave some writes to the next one.
+        for (int i = 0; i < 10 && cache.stats().getSize() > 10; i++) {
+            cache.cleanUp();
+        }
+
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(1, stats.getHitCount());
+        Assert.assertEquals(2, stats.getMissCount());
+        Assert.assertEquals(1, stats.getLoadSuccessCount());
+        Assert.assertTrue(stats.getEvictionCount(CacheStats.EvictionCause.SIZE) > 0);
+        Assert.assertTrue(stats.getSize() <= 10);
+    }
+
+    @Test
+    public void testStatsReporter() {
+        // Unbounded, so the admission policy can not reject the entries read below.
+        CaffeineCache cache = new CaffeineCache(CaffeineConfig.of("stats-report"));
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("b");
+
+        CacheManager.register(cache);
+        try {
+            Map<String, CacheStats> reported = new HashMap<>();
+            CacheMetricsSink sink = (cacheName, total, period) -> reported.put(cacheName, period);
+            CacheStatsReporter reporter = new CacheStatsReporter(sink, Duration.ofMinutes(1));
+            reporter.report();
+            Assert.assertEquals(1, reported.get("stats-report").getHitCount());
+            Assert.assertEquals(1, reported.get("stats-report").getMissCount());
+
+            // The period stats are the delta since the previous report.
+            cache.put("d", "4");
+            cache.get("d");
+            reporter.report();
+            Assert.assertEquals(1, reported.get("stats-report").getHitCount());
+            Assert.assertEquals(0, reported.get("stats-report").getMissCount());
+        } finally {
+            CacheManager.remove("stats-report");
+        }
+    }
+
+    @Test
+    public void testVariableExpiry() throws InterruptedException {
+        ExpiryPolicy policy = (key, value) -> key.toString().startsWith("volatile") ? Duration.ofMillis(50) : null;
+        CaffeineCache cache = new CaffeineCache(CaffeineConfig.of("expiry")
+            .expireAfterWrite(Duration.ofMinutes(10)).expiryPolicy(policy));
+        cache.put("volatile-price", 1);
+        cache.put("static-name", "name");
+        cache.put("short", "value", Duration.ofMillis(50));
+        cache.put("long", "value", Duration.ofHours(1));
+
+        Thread.sleep(100);
+        Assert.assertNull(cache.get("volatile-price"));
+        Assert.assertNull(cache.get("short"));
+        Assert.assertEquals("name", cache.get("static-name"));
+        Assert.assertEquals("value", cache.get("long"));
+
+        // The time to live of single entry is supported without the default one.
+        CaffeineCache unbounded = new CaffeineCache(CaffeineConfig.of("expiry"));
+        unbounded.put("short", "value", Duration.ofMillis(50));
+        unbounded.put("forever", "value");
+        Thread.sleep(100);
+        Assert.assertNull(unbounded.get("short"));
+        Assert.assertEquals("value", unbounded.get("forever"));
+    }
+
+    @Test
+    public void testNegativeCaching() throws InterruptedException {
+        CaffeineCache cache = new CaffeineCache(CaffeineConfig.of("negative")
+            .expireAfterWrite(Duration.ofMinutes(10)).negativeTtl(Duration.ofMillis(50)));
+        AtomicInteger loadCount = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            Assert.assertNull(cache.get("absent", key -> {
+                loadCount.incrementAndGet();
+                return null;
+            }));
+        }
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertNull(cache.get("absent"));
+        Assert.assertSame(ValueWrapper.ABSENT, cache.lookup("absent"));
+        Assert.assertNull(cache.lookup("unknown"));
+
+        Map<Object, Object> values = cache.getAll(Arrays.asList("absent", "a", "b"),
+            keys -> Collections.singletonMap("a", "1"));
+        Assert.assertEquals(Collections.singletonMap("a", "1"), values);
+        Assert.assertSame(ValueWrapper.ABSENT, cache.lookup("b"));
+        Assert.assertNull(cache.getAsync("b", key -> CompletableFuture.completedFuture("2")).join());
+
+        Assert.assertNull(cache.putIfPresent("b", "2"));
+        Assert.assertEquals("2", cache.lookup("b").get());
+        Assert.assertEquals(0, cache.hottest(10).stream().filter(e -> e.getKey().equals("absent")).count());
+
+        // The absent mark expires earlier than the values.
+        Thread.sleep(100);
+        Assert.assertNull(cache.lookup("absent"));
+        Assert.assertEquals("loaded", cache.get("absent", key -> "loaded"));
+        Assert.assertEquals("1", cache.get("a"));
+    }
 }
@@ -0,0 +1,63 @@
+package me.mingshan.util.cache;
+
+import me.mingshan.util.cache.caffeine.CaffeineCache;
+import me.mingshan.util.cache.caffeine.CaffeineConfig;
+import me.mingshan.util.cache.invalidation.InMemoryInvalidationTransport;
+import me.mingshan.util.cache.invalidation.InvalidationBus;
+import me.mingshan.util.cache.invalidation.InvalidationMessage;
+import me.mingshan.util.cache.multilevel.TwoLevelCache;
+import me.mingshan.util.cache.redis.InMemoryRedisConnectionFactory;
+import me.mingshan.util.cache.redis.RedisCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class InvalidationBusTest {
+
+    @Test
+    public void testCrossNodeInvalidation() {
+        InMemoryRedisConnectionFactory redis = new InMemoryRedisConnectionFactory();
+        InMemoryInvalidationTransport transport = new InMemoryInvalidationTransport();
+        InvalidationBus bus1 = new InvalidationBus(transport, Duration.ZERO, InvalidationBus.DEFAULT_MAX_BATCH_SIZE);
+        InvalidationBus bus2 = new InvalidationBus(transport, Duration.ZERO, InvalidationBus.DEFAULT_MAX_BATCH_SIZE);
+        Cache node1 = new TwoLevelCache("user", new CaffeineCache(CaffeineConfig.defaultConfig("user")),
+            new RedisCache("user", redis), bus1);
+        Cache node2 = new TwoLevelCache("user", new CaffeineCache(CaffeineConfig.defaultConfig("user")),
+            new RedisCache("user", redis), bus2);
+
+        node1.put("k", "v1");
+        Assert.assertEquals("v1", node2.get("k"));
+
+        node1.put("k", "v2");
+        Assert.assertEquals("v2", node2.get("k"));
+
+        node1.evict("k");
+        Assert.assertNull(node2.get("k"));
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        InMemoryInvalidationTransport transport = new InMemoryInvalidationTransport();
+        List<InvalidationMessage> messages = new ArrayList<>();
+        transport.subscribe(messages::add);
+        InvalidationBus bus = new InvalidationBus(transport, Duration.ofSeconds(10), 100);
+
+        bus.invalidate("user", Arrays.asList(1, 2));
+        bus.invalidate("user", Arrays.asList(2, 3));
+        bus.invalidate("role", Arrays.asList(1));
+        Assert.assertTrue(messages.isEmpty());
+
+        bus.flush();
+        Assert.assertEquals(2, messages.size());
+        for (InvalidationMessage message : messages) {
+            if ("user".equals(message.getCacheName())) {
+                Assert.assertEquals(Arrays.asList(1, 2, 3), message.getKeys());
+            }
+        }
+        bus.close();
+    }
+}
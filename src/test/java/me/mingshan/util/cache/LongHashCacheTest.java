@@ -0,0 +1,76 @@
+package me.mingshan.util.cache;
+
+import me.mingshan.util.cache.primitive.LongHashCache;
+import me.mingshan.util.cache.stats.CacheStats;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class LongHashCacheTest {
+
+    @Test
+    public void testPutAndGet() {
+        LongHashCache cache = new LongHashCache("longKey", 10_000);
+        Map<Long, Object> expected = new HashMap<>();
+        Random random = new Random(1);
+        // Puts and evicts randomly to exercise the backward shifting on collisions.
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                cache.evict(key);
+                expected.remove(key);
+            } else {
+                cache.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        Assert.assertEquals(expected.size(), cache.size());
+        for (long key = 0; key < 5_000; key++) {
+            Assert.assertEquals(expected.get(key), cache.get(key));
+        }
+
+        Assert.assertEquals("loaded", cache.get(-1L, key -> "loaded"));
+        Assert.assertEquals("loaded", cache.putIfPresent(-1L, "other"));
+        Assert.assertNull(cache.get(-2L, key -> null));
+        Assert.assertNull(cache.get(-2L));
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.get(1L));
+    }
+
+    @Test
+    public void testEviction() {
+        LongHashCache cache = new LongHashCache("longKey", 100, null, 1);
+        for (long key = 0; key < 100; key++) {
+            cache.put(key, key);
+        }
+        // The referenced entry gets the second chance.
+        cache.get(0L);
+        for (long key = 100; key < 150; key++) {
+            cache.put(key, key);
+        }
+        Assert.assertEquals(100, cache.size());
+        Assert.assertEquals(0L, cache.get(0L));
+        Assert.assertEquals(149L, cache.get(149L));
+
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(50, stats.getEvictionCount(CacheStats.EvictionCause.SIZE));
+        Assert.assertEquals(3, stats.getHitCount());
+    }
+
+    @Test
+    public void testExpire() throws InterruptedException {
+        LongHashCache cache = new LongHashCache("longKey", 100, Duration.ofMillis(50));
+        cache.put(1L, "value");
+        Assert.assertEquals("value", cache.get(1L));
+        Thread.sleep(100);
+        Assert.assertNull(cache.get(1L));
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(1, cache.stats().getEvictionCount(CacheStats.EvictionCause.EXPIRED));
+    }
+}
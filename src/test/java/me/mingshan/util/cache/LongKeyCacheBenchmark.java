@@ -0,0 +1,76 @@
+package me.mingshan.util.cache;
+
+import me.mingshan.util.cache.caffeine.CaffeineCache;
+import me.mingshan.util.cache.caffeine.CaffeineConfig;
+import me.mingshan.util.cache.primitive.LongHashCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the lookup of numeric ids in {@link CaffeineCache} and {@link LongHashCache},
+ * run the main method to see the time and the allocation ({@code gc.alloc.rate.norm}) per lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LongKeyCacheBenchmark {
+    private static final int SIZE = 1 << 16;
+
+    private final long[] ids = new long[SIZE];
+    private Cache caffeineCache;
+    private LongKeyCache longKeyCache;
+    private int index;
+
+    @Setup
+    public void setup() {
+        caffeineCache = new CaffeineCache(CaffeineConfig.of("benchmark").maximumSize(SIZE * 2));
+        longKeyCache = new LongHashCache("benchmark", SIZE * 2);
+        for (int i = 0; i < SIZE; i++) {
+            // Out of the range of Long cache, so the boxing allocates.
+            ids[i] = 1_000_000_000L + i * 7L;
+            caffeineCache.put(ids[i], i);
+            longKeyCache.put(ids[i], i);
+        }
+    }
+
+    private long nextId() {
+        index = (index + 1) & (SIZE - 1);
+        return ids[index];
+    }
+
+    @Benchmark
+    public Object caffeineCache() {
+        return caffeineCache.get(nextId());
+    }
+
+    @Benchmark
+    public Object longKeyCache() {
+        return longKeyCache.get(nextId());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(LongKeyCacheBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,96 @@
+package me.mingshan.util.cache;
+
+import me.mingshan.util.cache.offheap.OffHeapCache;
+import me.mingshan.util.cache.stats.CacheStats;
+import me.mingshan.util.cache.support.ValueCodec;
+import me.mingshan.util.entity.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class OffHeapCacheTest {
+
+    @Test
+    public void testPutAndGet() {
+        OffHeapCache cache = new OffHeapCache("offHeap", 1024 * 1024);
+        Person person = new Person();
+        person.setName("mingshan");
+        person.setAge(18);
+        cache.put(1, person);
+
+        Person cached = (Person) cache.get(1);
+        Assert.assertEquals("mingshan", cached.getName());
+        Assert.assertEquals(18, cached.getAge());
+
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            list.add(i);
+        }
+        // The value spans multiple blocks.
+        cache.put(2, list);
+        Assert.assertEquals(list, cache.get(2));
+
+        Assert.assertEquals(list, cache.putIfPresent(2, "other"));
+        Assert.assertNull(cache.putIfPresent(3, "three"));
+        Assert.assertEquals("three", cache.get(3));
+
+        cache.evict(2);
+        Assert.assertNull(cache.get(2));
+        Assert.assertEquals(2, cache.size());
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.usedBytes());
+    }
+
+    @Test
+    public void testEviction() {
+        // One segment with 16 blocks of 64 bytes.
+        OffHeapCache cache = new OffHeapCache("lru", 1024, 64, 1, new ValueCodec());
+        for (int i = 0; i < 16; i++) {
+            cache.put(i, "value" + i);
+        }
+        Assert.assertEquals(16, cache.size());
+
+        // Touches the eldest entry, so the entry 1 becomes the least recently used.
+        Assert.assertEquals("value0", cache.get(0));
+        cache.put(16, "value16");
+
+        Assert.assertEquals(16, cache.size());
+        Assert.assertEquals("value0", cache.get(0));
+        Assert.assertNull(cache.get(1));
+        Assert.assertTrue(cache.usedBytes() <= cache.capacity());
+
+        // The value which is larger than the budget is not cached.
+        cache.put("large", new byte[2048]);
+        Assert.assertNull(cache.get("large"));
+    }
+
+    @Test
+    public void testStats() {
+        OffHeapCache cache = new OffHeapCache("stats", 1024 * 1024);
+        Assert.assertEquals("1", cache.get(1, key -> "1"));
+        Assert.assertEquals("1", cache.get(1, key -> "other"));
+        Assert.assertNull(cache.get(2, key -> null));
+        try {
+            cache.get(3, key -> {
+                throw new IllegalStateException();
+            });
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        Assert.assertEquals("4", cache.getAsync(4, key -> CompletableFuture.completedFuture("4")).join());
+
+        // The double check before loading is not counted as another miss.
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(1, stats.getHitCount());
+        Assert.assertEquals(4, stats.getMissCount());
+        Assert.assertEquals(2, stats.getLoadSuccessCount());
+        Assert.assertEquals(2, stats.getLoadFailureCount());
+        Assert.assertTrue(stats.getTotalLoadTime() > 0);
+    }
+}
@@ -0,0 +1,72 @@
+package me.mingshan.util.cache;
+
+import me.mingshan.util.cache.caffeine.CaffeineCache;
+import me.mingshan.util.cache.caffeine.CaffeineConfig;
+import me.mingshan.util.cache.multilevel.TwoLevelCache;
+import me.mingshan.util.cache.redis.InMemoryRedisConnectionFactory;
+import me.mingshan.util.cache.redis.RedisCache;
+import me.mingshan.util.entity.Person;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TwoLevelCacheTest {
+
+    @Test
+    public void testReadThrough() {
+        InMemoryRedisConnectionFactory redis = new InMemoryRedisConnectionFactory();
+        RedisCache remoteCache = new RedisCache("user", redis);
+        Cache cache = new TwoLevelCache("user", new CaffeineCache(CaffeineConfig.defaultConfig("user")), remoteCache);
+
+        Person person = new Person();
+        person.setName("mingshan");
+        person.setAge(18);
+        cache.put(1L, person);
+        Assert.assertTrue(redis.containsKey("user::1"));
+
+        int commandCount = redis.getCommandCount();
+        for (int i = 0; i < 10; i++) {
+            Assert.assertSame(person, cache.get(1L));
+        }
+        // The repeated reads are served by local cache.
+        Assert.assertEquals(commandCount, redis.getCommandCount());
+
+        // The value written by another node is read through from Redis.
+        Cache otherNode = new TwoLevelCache("user", new CaffeineCache(CaffeineConfig.defaultConfig("user")),
+            new RedisCache("user", redis));
+        Person decoded = (Person) otherNode.get(1L);
+        Assert.assertEquals("mingshan", decoded.getName());
+        Assert.assertEquals(18, decoded.getAge());
+
+        cache.evict(1L);
+        Assert.assertNull(cache.get(1L));
+        Assert.assertFalse(redis.containsKey("user::1"));
+    }
+
+    @Test
+    public void testBulk() {
+        InMemoryRedisConnectionFactory redis = new InMemoryRedisConnectionFactory();
+        Cache cache = new TwoLevelCache("bulk", new CaffeineCache(CaffeineConfig.defaultConfig("bulk")),
+            new RedisCache("bulk", redis));
+
+        Map<Object, Object> values = new HashMap<>();
+        values.put("a", 1);
+        values.put("b", 2);
+        cache.putAll(values);
+
+        Map<Object, Object> result = cache.getAll(Arrays.asList("a", "b", "c"), missingKeys -> {
+            Map<Object, Object> loaded = new HashMap<>();
+            missingKeys.forEach(key -> loaded.put(key, 3));
+            return loaded;
+        });
+        Assert.assertEquals(3, result.size());
+        Assert.assertTrue(redis.containsKey("bulk::c"));
+
+        cache.clear();
+        Assert.assertEquals(0, redis.size());
+        Assert.assertNull(cache.get("a"));
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.extend;
+
+import me.mingshan.util.cache.Cache;
+import me.mingshan.util.cache.CacheManager;
+import me.mingshan.util.cache.caffeine.CaffeineCache;
+import me.mingshan.util.cache.caffeine.CaffeineConfig;
+import me.mingshan.util.cache.extend.annotation.CacheEvictList;
+import me.mingshan.util.cache.extend.aspect.CacheEvictListAspect;
+import me.mingshan.util.cache.extend.support.CacheEvictBackend;
+import me.mingshan.util.cache.extend.support.RedisCacheEvictBackend;
+import me.mingshan.util.cache.extend.support.RedisKeyEvictor;
+import me.mingshan.util.cache.redis.InMemoryRedisConnectionFactory;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author mingshan
+ */
+public class CacheEvictListAspectTest {
+    private InMemoryRedisConnectionFactory factory;
+    private StringRedisTemplate template;
+    private Cache localCache;
+    private CacheEvictListAspect aspect;
+
+    @CacheEvictList(value = "aspect-user", key = "#ids", backends = {"local", "redis"})
+    public void batchDelete(List<Integer> ids) {
+    }
+
+    @CacheEvictList(value = "aspect-user", pattern = "*", backends = {"local", "redis"})
+    public void deleteAll() {
+    }
+
+    @CacheEvictList(value = "aspect-user", key = "#ids", afterCommit = true)
+    public void deleteAfterCommit(List<Integer> ids) {
+    }
+
+    @CacheEvictList(value = "aspect-user", key = "#ids", doubleDeleteDelay = 100)
+    public void doubleDelete(List<Integer> ids) {
+    }
+
+    @Before
+    public void setUp() {
+        factory = new InMemoryRedisConnectionFactory();
+        template = new StringRedisTemplate(factory);
+        localCache = new CaffeineCache(CaffeineConfig.of("aspect-user").maximumSize(100));
+        CacheManager.register(localCache);
+        for (int i = 0; i < 10; i++) {
+            template.opsForValue().set("aspect-user::" + i, "v" + i);
+            localCache.put(i, "v" + i);
+        }
+
+        aspect = new CacheEvictListAspect();
+        aspect.registerBackend(CacheEvictBackend.REDIS, new RedisCacheEvictBackend(new RedisKeyEvictor(template)));
+    }
+
+    @After
+    public void tearDown() {
+        CacheManager.remove("aspect-user");
+    }
+
+    @Test
+    public void testEvictFromBothBackends() throws Exception {
+        aspect.remove(joinPoint("batchDelete", new Object[]{Arrays.asList(1, 2, 3)}, List.class));
+
+        Assert.assertEquals(7, factory.size());
+        Assert.assertFalse(factory.containsKey("aspect-user::2"));
+        Assert.assertTrue(factory.containsKey("aspect-user::4"));
+        Assert.assertNull(localCache.get(2));
+        Assert.assertEquals("v4", localCache.get(4));
+    }
+
+    @Test
+    public void testEvictByPattern() throws Exception {
+        template.opsForValue().set("order::1", "v");
+        List<Runnable> tasks = new ArrayList<>();
+        aspect.setExecutor(task -> Assert.fail("The pattern eviction is submitted to the key eviction executor"));
+        aspect.setPatternExecutor(tasks::add);
+        aspect.remove(joinPoint("deleteAll", new Object[0]));
+
+        // 按模式删除总是提交到单独的线程池
+        Assert.assertEquals(2, tasks.size());
+        Assert.assertEquals(11, factory.size());
+        tasks.forEach(Runnable::run);
+        Assert.assertEquals(1, factory.size());
+        Assert.assertNull(localCache.get(4));
+    }
+
+    @Test
+    public void testEvictAfterCommit() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            aspect.remove(joinPoint("deleteAfterCommit", new Object[]{Arrays.asList(1, 2, 3)}, List.class));
+            aspect.remove(joinPoint("deleteAfterCommit", new Object[]{Arrays.asList(2, 3, 4)}, List.class));
+            Assert.assertEquals(10, factory.size());
+
+            int before = factory.getCommandCount();
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+            // 两次调用合并为一条删除命令
+            Assert.assertEquals(1, factory.getCommandCount() - before);
+            Assert.assertEquals(6, factory.size());
+            Assert.assertFalse(factory.containsKey("aspect-user::4"));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testEvictRolledBack() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            aspect.remove(joinPoint("deleteAfterCommit", new Object[]{Arrays.asList(1, 2, 3)}, List.class));
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            Assert.assertEquals(10, factory.size());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testDoubleDelete() throws Exception {
+        aspect.remove(joinPoint("doubleDelete", new Object[]{Arrays.asList(1, 2)}, List.class));
+        Assert.assertFalse(factory.containsKey("aspect-user::1"));
+
+        // 延时期间回填的旧数据被第二次删除
+        template.opsForValue().set("aspect-user::1", "stale");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (factory.containsKey("aspect-user::1") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Assert.assertFalse(factory.containsKey("aspect-user::1"));
+    }
+
+    private JoinPoint joinPoint(String name, Object[] args, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Method method = CacheEvictListAspectTest.class.getMethod(name, parameterTypes);
+        MethodSignature signature = (MethodSignature) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{MethodSignature.class}, (proxy, m, a) -> {
+                switch (m.getName()) {
+                    case "getMethod":
+                        return method;
+                    case "getName":
+                        return name;
+                    default:
+                        throw new UnsupportedOperationException(m.toString());
+                }
+            });
+        return (JoinPoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{JoinPoint.class}, (proxy, m, a) -> {
+                switch (m.getName()) {
+                    case "getSignature":
+                        return signature;
+                    case "getArgs":
+                        return args;
+                    case "getTarget":
+                        return this;
+                    default:
+                        throw new UnsupportedOperationException(m.toString());
+                }
+            });
+    }
+}
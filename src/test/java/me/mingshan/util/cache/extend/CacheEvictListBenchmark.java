@@ -0,0 +1,152 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.extend;
+
+import me.mingshan.util.cache.extend.annotation.CacheEvictList;
+import me.mingshan.util.cache.extend.aspect.CacheEvictListAspect;
+import me.mingshan.util.cache.extend.support.CacheEvictBackend;
+import me.mingshan.util.cache.extend.support.CacheEvictListMetadata;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.LocalVariableTableParameterNameDiscoverer;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-invocation overhead of resolving the keys of {@link CacheEvictList}: parsing everything
+ * on each call as the aspect used to do, and calling {@link CacheEvictListAspect#remove(JoinPoint)} which
+ * looks up the cached {@link CacheEvictListMetadata} with the compiled SpEL expression. The aspect evicts
+ * from a no-op backend, so only the overhead of the aspect is measured. Run the main method to see the time
+ * and the allocation per invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CacheEvictListBenchmark {
+    private final CacheEvictListAspect aspect = new CacheEvictListAspect();
+    private final UserService target = new UserService();
+    private Method method;
+    private Object[] args;
+    private JoinPoint joinPoint;
+    private List<?> evictedKeys;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        method = UserService.class.getMethod("batchDelete", List.class);
+        args = new Object[]{Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8)};
+        joinPoint = joinPoint();
+        aspect.registerBackend(CacheEvictBackend.REDIS, new CacheEvictBackend() {
+            @Override
+            public void evict(String cacheName, List<?> keys, CacheEvictList cacheEvictList) {
+                evictedKeys = keys;
+            }
+
+            @Override
+            public void evictByPattern(String cacheName, String pattern, CacheEvictList cacheEvictList) {
+            }
+        });
+    }
+
+    @Benchmark
+    public List<String> parseEachCall() throws NoSuchMethodException {
+        Method realMethod = UserService.class.getDeclaredMethod(method.getName(), method.getParameterTypes());
+        CacheEvictList cacheEvictList = realMethod.getAnnotation(CacheEvictList.class);
+        String keyPrefix = cacheEvictList.value() + "::";
+
+        String[] paraNameArr = new LocalVariableTableParameterNameDiscoverer().getParameterNames(method);
+        ExpressionParser parser = new SpelExpressionParser();
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        for (int i = 0; i < paraNameArr.length; i++) {
+            context.setVariable(paraNameArr[i], args[i]);
+        }
+        List<?> parsedList = parser.parseExpression(cacheEvictList.key()).getValue(context, List.class);
+
+        List<String> allKey = new ArrayList<>();
+        parsedList.forEach(item -> allKey.add(keyPrefix + item));
+        return allKey;
+    }
+
+    @Benchmark
+    public List<?> aspect() throws NoSuchMethodException {
+        aspect.remove(joinPoint);
+        return evictedKeys;
+    }
+
+    private JoinPoint joinPoint() {
+        MethodSignature signature = (MethodSignature) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{MethodSignature.class}, (proxy, m, a) -> {
+                switch (m.getName()) {
+                    case "getMethod":
+                        return method;
+                    case "getName":
+                        return method.getName();
+                    default:
+                        throw new UnsupportedOperationException(m.toString());
+                }
+            });
+        return (JoinPoint) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{JoinPoint.class}, (proxy, m, a) -> {
+                switch (m.getName()) {
+                    case "getSignature":
+                        return signature;
+                    case "getArgs":
+                        return args;
+                    case "getTarget":
+                        return target;
+                    default:
+                        throw new UnsupportedOperationException(m.toString());
+                }
+            });
+    }
+
+    public static class UserService {
+        @CacheEvictList(value = "user", key = "#ids")
+        public void batchDelete(List<Integer> ids) {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(CacheEvictListBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.extend;
+
+import me.mingshan.util.cache.extend.annotation.CacheEvictList;
+import me.mingshan.util.cache.extend.support.CacheEvictListMetadata;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * @author mingshan
+ */
+public class CacheEvictListMetadataTest {
+
+    @CacheEvictList(value = "user", key = "#ids")
+    public void batchDelete(List<Integer> ids) {
+    }
+
+    @CacheEvictList(value = "user", key = "#id")
+    public void delete(Object id) {
+    }
+
+    @CacheEvictList(value = "user", key = "all")
+    public void deleteAll() {
+    }
+
+    @CacheEvictList(value = "user", pattern = "*")
+    public void deleteByPattern() {
+    }
+
+    @Test
+    public void testResolveKeys() throws NoSuchMethodException {
+        CacheEvictListMetadata metadata = CacheEvictListMetadata.forMethod(
+            CacheEvictListMetadataTest.class.getMethod("batchDelete", List.class));
+        Assert.assertNotNull(metadata);
+        Assert.assertNull(metadata.keyPattern());
+
+        // 多次求值，后面的调用走编译后的表达式
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(Arrays.asList(1, i),
+                metadata.resolveKeys(new Object[]{Arrays.asList(1, i)}));
+        }
+        Assert.assertEquals(Collections.emptyList(), metadata.resolveKeys(new Object[]{Collections.emptyList()}));
+
+        metadata = CacheEvictListMetadata.forMethod(CacheEvictListMetadataTest.class.getMethod("deleteAll"));
+        Assert.assertEquals(Collections.singletonList("all"), metadata.resolveKeys(new Object[0]));
+    }
+
+    @Test
+    public void testResolveKeysWithDifferentArgumentClasses() throws NoSuchMethodException {
+        CacheEvictListMetadata metadata = CacheEvictListMetadata.forMethod(
+            CacheEvictListMetadataTest.class.getMethod("batchDelete", List.class));
+        // 编译后的表达式与首次求值时参数的类型有关，参数类型变化后仍然可以求值
+        List<Integer> ids = Arrays.asList(1, 2);
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(ids, metadata.resolveKeys(new Object[]{new ArrayList<>(ids)}));
+        }
+        Assert.assertEquals(ids, metadata.resolveKeys(new Object[]{new LinkedList<>(ids)}));
+        Assert.assertEquals(ids, metadata.resolveKeys(new Object[]{ids}));
+
+        metadata = CacheEvictListMetadata.forMethod(
+            CacheEvictListMetadataTest.class.getMethod("delete", Object.class));
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(Collections.singletonList(1L), metadata.resolveKeys(new Object[]{1L}));
+        }
+        Assert.assertEquals(Collections.singletonList("a"), metadata.resolveKeys(new Object[]{"a"}));
+    }
+
+    @CacheEvictList(pattern = "*")
+    public void deleteEverything() {
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testKeyPatternRequiresCacheName() throws NoSuchMethodException {
+        CacheEvictListMetadata.forMethod(CacheEvictListMetadataTest.class.getMethod("deleteEverything"));
+    }
+
+    @Test
+    public void testKeyPattern() throws NoSuchMethodException {
+        CacheEvictListMetadata metadata = CacheEvictListMetadata.forMethod(
+            CacheEvictListMetadataTest.class.getMethod("deleteByPattern"));
+        Assert.assertEquals("user", metadata.getCacheName());
+        Assert.assertEquals("*", metadata.keyPattern());
+
+        Assert.assertNull(CacheEvictListMetadata.forMethod(
+            CacheEvictListMetadataTest.class.getMethod("testKeyPattern")));
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.cache.extend;
+
+import me.mingshan.util.cache.extend.support.RedisKeyEvictor;
+import me.mingshan.util.cache.redis.InMemoryRedisConnectionFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author mingshan
+ */
+public class RedisKeyEvictorTest {
+
+    @Test
+    public void testEvictInBatches() {
+        InMemoryRedisConnectionFactory factory = new InMemoryRedisConnectionFactory();
+        StringRedisTemplate template = new StringRedisTemplate(factory);
+
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 1203; i++) {
+            String key = "user::" + i;
+            template.opsForValue().set(key, "v" + i);
+            keys.add(key);
+        }
+        template.opsForValue().set("order::1", "v");
+
+        int before = factory.getCommandCount();
+        new RedisKeyEvictor(template).evict(keys, 100);
+
+        // 1203 个 key，每条命令 100 个，共 13 条命令
+        Assert.assertEquals(13, factory.getCommandCount() - before);
+        Assert.assertEquals(1, factory.size());
+        Assert.assertTrue(factory.containsKey("order::1"));
+    }
+
+    @Test
+    public void testEvictByPattern() throws InterruptedException {
+        InMemoryRedisConnectionFactory factory = new InMemoryRedisConnectionFactory();
+        StringRedisTemplate template = new StringRedisTemplate(factory);
+        for (int i = 0; i < 1000; i++) {
+            template.opsForValue().set("user::" + i, "v" + i);
+        }
+        template.opsForValue().set("order::1", "v");
+
+        AtomicLong deleted = new AtomicLong();
+        RedisKeyEvictor redisKeyEvictor = new RedisKeyEvictor(template);
+        Thread evictor = new Thread(() -> deleted.set(redisKeyEvictor.evictByPattern("user::*", 100, 5000)));
+        long start = System.nanoTime();
+        evictor.start();
+        // 限速等待时不占用连接
+        boolean idleConnection = false;
+        while (evictor.isAlive()) {
+            idleConnection |= factory.getOpenConnections() == 0 && factory.size() > 1;
+            Thread.sleep(5);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        Assert.assertEquals(1000, deleted.get());
+        Assert.assertEquals(1, factory.size());
+        Assert.assertTrue(factory.containsKey("order::1"));
+        Assert.assertTrue(idleConnection);
+        Assert.assertEquals(0, factory.getOpenConnections());
+        // 限速 5000/s，前 9 批删除后共等待约 180ms
+        Assert.assertTrue(elapsedMillis >= 150);
+    }
+}
@@ -0,0 +1,346 @@
+package me.mingshan.util.cache.redis;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.ReactiveKeyCommands;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.ReactiveStringCommands;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * The in-memory stand-in for Redis, only supports the commands used by the cache implementations.
+ *
+ * @author mingshan
+ */
+public class InMemoryRedisConnectionFactory implements RedisConnectionFactory {
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+    private final AtomicInteger commandCount = new AtomicInteger();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final Map<String, Iterator<String>> scanCursors = new ConcurrentHashMap<>();
+    private final AtomicInteger cursorIds = new AtomicInteger();
+    private volatile Consumer<String> commandListener = command -> { };
+
+    public int getCommandCount() {
+        return commandCount.get();
+    }
+
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * Sets the listener which is called with the name of every command before it is executed.
+     *
+     * @param commandListener the listener
+     */
+    public void setCommandListener(Consumer<String> commandListener) {
+        this.commandListener = commandListener;
+    }
+
+    public boolean containsKey(String key) {
+        return read(key) != null;
+    }
+
+    public int size() {
+        data.keySet().removeIf(key -> read(key) == null);
+        return data.size();
+    }
+
+    @Override
+    public RedisConnection getConnection() {
+        openConnections.incrementAndGet();
+        return (RedisConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{RedisConnection.class}, new ConnectionHandler());
+    }
+
+    /**
+     * Returns the reactive connection factory which shares the data with this factory.
+     *
+     * @return the reactive connection factory
+     */
+    public ReactiveRedisConnectionFactory reactive() {
+        return (ReactiveRedisConnectionFactory) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{ReactiveRedisConnectionFactory.class}, (proxy, method, args) -> {
+                if ("getReactiveConnection".equals(method.getName())) {
+                    ReactiveHandler handler = new ReactiveHandler();
+                    return Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[]{ReactiveRedisConnection.class}, handler);
+                }
+                throw new UnsupportedOperationException(method.toString());
+            });
+    }
+
+    @Override
+    public RedisClusterConnection getClusterConnection() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean getConvertPipelineAndTxResults() {
+        return false;
+    }
+
+    @Override
+    public RedisSentinelConnection getSentinelConnection() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DataAccessException translateExceptionIfPossible(RuntimeException ex) {
+        return null;
+    }
+
+    private byte[] read(String key) {
+        Entry entry = data.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expireAt > 0 && entry.expireAt <= System.currentTimeMillis()) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private static String string(Object bytes) {
+        return new String((byte[]) bytes, StandardCharsets.UTF_8);
+    }
+
+    private long delete(Object[] args) {
+        long count = 0;
+        for (Object rawKey : (Object[]) args[0]) {
+            if (read(string(rawKey)) != null) {
+                count++;
+            }
+            data.remove(string(rawKey));
+        }
+        return count;
+    }
+
+    private static byte[] bytes(Object buffer) {
+        ByteBuffer byteBuffer = ((ByteBuffer) buffer).duplicate();
+        byte[] bytes = new byte[byteBuffer.remaining()];
+        byteBuffer.get(bytes);
+        return bytes;
+    }
+
+    private static final class Entry {
+        private final byte[] value;
+        private final long expireAt;
+
+        private Entry(byte[] value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private boolean closed;
+        private boolean pipelined;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "stringCommands":
+                case "keyCommands":
+                case "scriptingCommands":
+                    return proxy;
+                case "close":
+                    if (!closed) {
+                        openConnections.decrementAndGet();
+                    }
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isPipelined":
+                    return pipelined;
+                case "openPipeline":
+                    pipelined = true;
+                    return null;
+                case "closePipeline":
+                    pipelined = false;
+                    return Collections.emptyList();
+                case "isQueueing":
+                    return false;
+                default:
+                    break;
+            }
+
+            commandListener.accept(method.getName());
+            commandCount.incrementAndGet();
+            switch (method.getName()) {
+                case "get":
+                    return read(string(args[0]));
+                case "mGet": {
+                    List<byte[]> values = new ArrayList<>();
+                    for (Object rawKey : (Object[]) args[0]) {
+                        values.add(read(string(rawKey)));
+                    }
+                    return values;
+                }
+                case "set":
+                    return set(args);
+                case "del":
+                case "unlink":
+                    return delete(args);
+                case "scan":
+                    return scan((ScanOptions) args[0]);
+                case "evalSha":
+                    return scanAndDelete((byte[][]) args[3]);
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        }
+
+        /**
+         * Emulates the SCAN and delete script of the key evictor, the arguments are the cursor, the
+         * pattern, the count and the delete command.
+         */
+        private List<Object> scanAndDelete(byte[][] scriptArgs) {
+            Iterator<String> iterator = scanCursors.remove(string(scriptArgs[0]));
+            if (iterator == null) {
+                Pattern regex = Pattern.compile(string(scriptArgs[1]).replace("?", ".").replace("*", ".*"));
+                List<String> keys = new ArrayList<>();
+                for (String key : data.keySet()) {
+                    if (regex.matcher(key).matches()) {
+                        keys.add(key);
+                    }
+                }
+                iterator = keys.iterator();
+            }
+            int count = Integer.parseInt(string(scriptArgs[2]));
+            List<Object> rawKeys = new ArrayList<>(count);
+            while (iterator.hasNext() && rawKeys.size() < count) {
+                rawKeys.add(iterator.next().getBytes(StandardCharsets.UTF_8));
+            }
+            long deleted = delete(new Object[]{rawKeys.toArray()});
+            String cursor = "0";
+            if (iterator.hasNext()) {
+                cursor = String.valueOf(cursorIds.incrementAndGet());
+                scanCursors.put(cursor, iterator);
+            }
+            return Arrays.asList(cursor.getBytes(StandardCharsets.UTF_8), deleted);
+        }
+
+        private Boolean set(Object[] args) {
+            String key = string(args[0]);
+            long expireAt = 0;
+            RedisStringCommands.SetOption option = RedisStringCommands.SetOption.upsert();
+            if (args.length == 4) {
+                Expiration expiration = (Expiration) args[2];
+                if (expiration != null && !expiration.isPersistent()) {
+                    expireAt = System.currentTimeMillis() + expiration.getExpirationTimeInMilliseconds();
+                }
+                option = (RedisStringCommands.SetOption) args[3];
+            }
+            if (option == RedisStringCommands.SetOption.SET_IF_ABSENT && read(key) != null) {
+                return false;
+            }
+            if (option == RedisStringCommands.SetOption.SET_IF_PRESENT && read(key) == null) {
+                return false;
+            }
+            data.put(key, new Entry((byte[]) args[1], expireAt));
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Cursor<byte[]> scan(ScanOptions options) {
+            String pattern = options.getPattern() == null ? "*" : options.getPattern();
+            Pattern regex = Pattern.compile(pattern.replace("?", ".").replace("*", ".*"));
+            List<byte[]> keys = new ArrayList<>();
+            for (String key : data.keySet()) {
+                if (regex.matcher(key).matches() && read(key) != null) {
+                    keys.add(key.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            Iterator<byte[]> iterator = keys.iterator();
+            return (Cursor<byte[]>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Cursor.class},
+                (cursorProxy, cursorMethod, cursorArgs) -> {
+                    switch (cursorMethod.getName()) {
+                        case "hasNext":
+                            return iterator.hasNext();
+                        case "next":
+                            return iterator.next();
+                        case "isClosed":
+                            return false;
+                        case "getCursorId":
+                        case "getPosition":
+                            return 0L;
+                        default:
+                            return null;
+                    }
+                });
+        }
+    }
+
+    private final class ReactiveHandler implements InvocationHandler {
+        private final ConnectionHandler connectionHandler = new ConnectionHandler();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "stringCommands":
+                    return Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[]{ReactiveStringCommands.class}, this);
+                case "keyCommands":
+                    return Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[]{ReactiveKeyCommands.class}, this);
+                case "close":
+                    return null;
+                case "closeLater":
+                    return Mono.empty();
+                default:
+                    break;
+            }
+
+            commandListener.accept(method.getName());
+            commandCount.incrementAndGet();
+            switch (method.getName()) {
+                case "get": {
+                    byte[] value = read(string(bytes(args[0])));
+                    return value == null ? Mono.empty() : Mono.just(ByteBuffer.wrap(value));
+                }
+                case "mGet": {
+                    List<ByteBuffer> values = new ArrayList<>();
+                    for (Object rawKey : (List<?>) args[0]) {
+                        byte[] value = read(string(bytes(rawKey)));
+                        values.add(value == null ? ByteBuffer.allocate(0) : ByteBuffer.wrap(value));
+                    }
+                    return Mono.just(values);
+                }
+                case "set":
+                    return Mono.just(connectionHandler.set(new Object[]{bytes(args[0]), bytes(args[1]), args[2], args[3]}));
+                case "del":
+                case "unlink":
+                    return Mono.just(delete(new Object[]{new Object[]{bytes(args[0])}}));
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.serialize;
+
+import me.mingshan.util.serialize.SerializerTest.Item;
+import me.mingshan.util.serialize.jdk.JDKSerializer;
+import me.mingshan.util.serialize.kryo.KryoSerializer;
+import me.mingshan.util.serialize.protostuff.ProtostuffSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of {@link Serializer#serializeList(List)} and {@link Serializer#deserializeList(byte[], Class)}
+ * of the serializers with a list of 1000 beans, and the per-element encoding used when the list was not supported.
+ * Run the main method to see the operations per second and the allocation per operation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializerListBenchmark {
+    private static final int SIZE = 1000;
+
+    @Param({"kryo", "protostuff", "jdk"})
+    private String serializerName;
+
+    private Serializer serializer;
+    private List<Item> items;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        switch (serializerName) {
+            case "kryo":
+                serializer = new KryoSerializer();
+                break;
+            case "protostuff":
+                serializer = new ProtostuffSerializer();
+                break;
+            default:
+                serializer = new JDKSerializer();
+                break;
+        }
+        items = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            items.add(new Item(i, "item-" + i, new int[]{i, i + 1}));
+        }
+        bytes = serializer.serializeList(items);
+    }
+
+    @Benchmark
+    public byte[] serializeList() {
+        return serializer.serializeList(items);
+    }
+
+    @Benchmark
+    public List<Item> deserializeList() {
+        return serializer.deserializeList(bytes, Item.class);
+    }
+
+    @Benchmark
+    public int serializePerElement() {
+        int length = 0;
+        for (Item item : items) {
+            length += serializer.serializeObject(item).length;
+        }
+        return length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(SerializerListBenchmark.class.getSimpleName())
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,199 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package me.mingshan.util.serialize;
+
+import me.mingshan.util.KryoUtil;
+import me.mingshan.util.serialize.jdk.JDKSerializer;
+import me.mingshan.util.serialize.kryo.KryoSerializer;
+import me.mingshan.util.serialize.protostuff.ProtostuffSerializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * @author mingshan
+ */
+public class SerializerTest {
+    private final List<Serializer> serializers =
+        Arrays.asList(new KryoSerializer(), new ProtostuffSerializer(), new JDKSerializer());
+
+    @Test
+    public void testByteBuffer() {
+        Item item = new Item(1L, "mingshan", new int[]{1, 2, 3});
+        for (Serializer serializer : serializers) {
+            byte[] bytes = serializer.serializeObject(item);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+            buffer.position(3);
+            serializer.serializeObject(item, buffer);
+            Assert.assertEquals(3 + bytes.length, buffer.position());
+
+            // 与字节数组的格式相同
+            byte[] written = new byte[bytes.length];
+            ((ByteBuffer) buffer.duplicate().position(3)).get(written);
+            Assert.assertArrayEquals(bytes, written);
+
+            buffer.limit(buffer.position()).position(3);
+            Assert.assertEquals(item, serializer.deserializeObject(buffer, Item.class));
+            Assert.assertFalse(buffer.hasRemaining());
+        }
+    }
+
+    @Test
+    public void testByteBufferOverflow() {
+        Item item = new Item(1L, "mingshan", new int[100]);
+        for (Serializer serializer : serializers) {
+            ByteBuffer buffer = ByteBuffer.allocate(16);
+            buffer.position(2);
+            try {
+                serializer.serializeObject(item, buffer);
+                Assert.fail(serializer.getClass().getSimpleName());
+            } catch (BufferOverflowException e) {
+                Assert.assertEquals(2, buffer.position());
+            }
+        }
+    }
+
+    @Test
+    public void testStream() {
+        Item item = new Item(2L, "stream", new int[]{4});
+        for (Serializer serializer : serializers) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            serializer.serializeObject(item, outputStream);
+            Assert.assertArrayEquals(serializer.serializeObject(item), outputStream.toByteArray());
+
+            ByteArrayInputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+            Assert.assertEquals(item, serializer.deserializeObject(inputStream, Item.class));
+        }
+    }
+
+    @Test
+    public void testList() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            items.add(new Item(i, "item-" + i, new int[]{i}));
+        }
+        for (Serializer serializer : serializers) {
+            byte[] bytes = serializer.serializeList(items);
+            Assert.assertEquals(items, serializer.deserializeList(bytes, Item.class));
+        }
+
+        // 元素类型只写一次，比逐个带类型的集合序列化更紧凑
+        Assert.assertTrue(new KryoSerializer().serializeList(items).length
+            < KryoUtil.writeToByteArray(new ArrayList<>(items)).length);
+    }
+
+    @Test
+    public void testListWithNullAndMixedClass() {
+        List<Object> mixed = Arrays.asList(new Item(1L, "a", null), null, "b", 3L);
+        List<Item> withNull = Arrays.asList(new Item(1L, "a", null), null, new Item(2L, "b", null));
+        for (Serializer serializer : Arrays.asList(new KryoSerializer(), new JDKSerializer())) {
+            Assert.assertEquals(mixed, serializer.deserializeList(serializer.serializeList(mixed), Object.class));
+            Assert.assertEquals(withNull, serializer.deserializeList(serializer.serializeList(withNull), Item.class));
+            Assert.assertEquals(Collections.emptyList(),
+                serializer.deserializeList(serializer.serializeList(Collections.emptyList()), Item.class));
+        }
+    }
+
+    @Test
+    public void testListIterator() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            items.add(new Item(i, "item-" + i, new int[]{i}));
+        }
+        for (Serializer serializer : serializers) {
+            byte[] bytes = serializer.serializeList(items);
+            Assert.assertEquals(items,
+                serializer.deserializeListStream(bytes, Item.class).collect(Collectors.toList()));
+
+            ElementIterator<Item> iterator = serializer.deserializeListIterator(bytes, Item.class);
+            Assert.assertEquals(3000, iterator.size());
+            Assert.assertEquals(items.get(0), iterator.next());
+            // 跳过的元素不返回，跳过后从指定位置继续解码
+            iterator.skipTo(2048);
+            Assert.assertEquals(2048, iterator.nextIndex());
+            Assert.assertEquals(items.subList(2048, 2051),
+                iterator.stream().limit(3).collect(Collectors.toList()));
+            iterator.skip(5000);
+            Assert.assertFalse(iterator.hasNext());
+        }
+
+        // 与其他序列化操作交替进行
+        Serializer kryo = new KryoSerializer();
+        byte[] bytes = kryo.serializeList(items);
+        ElementIterator<Item> iterator = kryo.deserializeListIterator(bytes, Item.class);
+        Assert.assertEquals(items.get(0), iterator.next());
+        Assert.assertEquals(items, kryo.deserializeList(kryo.serializeList(items), Item.class));
+        Assert.assertEquals(items.get(1), iterator.next());
+    }
+
+    @Test
+    public void testListIteratorWithNullAndMixedClass() {
+        List<Object> mixed = Arrays.asList(new Item(1L, "a", null), null, "b", 3L);
+        for (Serializer serializer : Arrays.asList(new KryoSerializer(), new JDKSerializer())) {
+            ElementIterator<Object> iterator =
+                serializer.deserializeListIterator(serializer.serializeList(mixed), Object.class);
+            iterator.skip(1);
+            Assert.assertNull(iterator.next());
+            Assert.assertEquals(mixed.subList(2, 4), iterator.stream().collect(Collectors.toList()));
+            Assert.assertFalse(serializer.deserializeListIterator(
+                serializer.serializeList(Collections.emptyList()), Item.class).hasNext());
+        }
+    }
+
+    public static class Item implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private long id;
+        private String name;
+        private int[] values;
+
+        public Item() {
+        }
+
+        public Item(long id, String name, int[] values) {
+            this.id = id;
+            this.name = name;
+            this.values = values;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Item)) {
+                return false;
+            }
+            Item item = (Item) o;
+            return id == item.id && Objects.equals(name, item.name) && Arrays.equals(values, item.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name);
+        }
+    }
+}